@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# 같은 이미지, 같은 프로필로 일반 실행 (java -jar) 과 AOT + CDS 실행의 시작 시간과 RSS 를 비교한다.
+#
+#   ./gradlew bootJar && docker build -t hackathon:local .
+#   ./scripts/measure-startup.sh hackathon:local [runs]
+#
+# 앱이 사용하는 MySQL, Weaviate 는 미리 떠 있어야 한다 (docker-compose.prod.yaml 등).
+# warm-up 은 외부 API 호출 시간이 섞이지 않도록 끈다.
+set -euo pipefail
+
+IMAGE="${1:?image name required}"
+RUNS="${2:-5}"
+PROFILE="${SPRING_PROFILES_ACTIVE:-prod}"
+PORT="${PORT:-8080}"
+
+# measure <label> [docker run 옵션...] [-- 컨테이너 명령...]
+measure() {
+  local label="$1"; shift
+  local name="startup-measure-$$"
+  local docker_args=() command=()
+  while [ $# -gt 0 ] && [ "$1" != "--" ]; do
+    docker_args+=("$1"); shift
+  done
+  [ $# -gt 0 ] && shift
+  command=("$@")
+
+  for run in $(seq 1 "$RUNS"); do
+    docker run -d --rm --name "$name" --network host \
+      -e SPRING_PROFILES_ACTIVE="$PROFILE" \
+      -e WARM_UP_ENABLED=false \
+      ${docker_args[@]+"${docker_args[@]}"} \
+      "$IMAGE" ${command[@]+"${command[@]}"} > /dev/null
+
+    until curl -fs "http://localhost:${PORT}/actuator/health/readiness" > /dev/null; do
+      sleep 0.1
+    done
+
+    local started rss
+    started=$(docker logs "$name" 2>&1 | grep -oE 'Started [A-Za-z]+ in [0-9.]+ seconds' | grep -oE '[0-9.]+ seconds')
+    rss=$(docker exec "$name" sh -c "grep VmRSS /proc/1/status" | awk '{print $2 / 1024 " MB"}')
+    printf '%-10s run %d: %s, RSS %s\n' "$label" "$run" "$started" "$rss"
+
+    docker stop "$name" > /dev/null
+  done
+}
+
+measure baseline --entrypoint java -- -jar application.jar
+measure aot-cds
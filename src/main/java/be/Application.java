@@ -3,10 +3,12 @@ package be;
 import org.springframework.boot.*;
 import org.springframework.boot.autoconfigure.*;
 import org.springframework.data.jpa.repository.config.*;
+import org.springframework.scheduling.annotation.*;
 
 @SpringBootApplication
 @EnableJpaAuditing(modifyOnCreate = false)
 @EnableJpaRepositories(considerNestedRepositories = true)
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -1,8 +1,9 @@
 package be.config;
 
+import be.util.metric.StageMetricsAdvisor;
 import org.springframework.ai.chat.client.AdvisorParams;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.google.genai.GoogleGenAiChatModel;
+import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,9 +11,10 @@ import org.springframework.context.annotation.Configuration;
 public class ChatClientConfig {
 
     @Bean
-    public ChatClient chatClient(GoogleGenAiChatModel chatModel) {
+    public ChatClient chatClient(ChatModel chatModel, StageMetricsAdvisor stageMetricsAdvisor) {
         return ChatClient.builder(chatModel)
                 .defaultAdvisors(AdvisorParams.ENABLE_NATIVE_STRUCTURED_OUTPUT)
+                .defaultAdvisors(stageMetricsAdvisor)
                 .build();
     }
 }
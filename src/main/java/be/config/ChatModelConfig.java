@@ -0,0 +1,58 @@
+package be.config;
+
+import be.service.CircuitBreakingChatModel;
+import be.service.GovernedChatModel;
+import be.service.ModelGovernor;
+import be.util.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ChatModelConfig {
+
+    /**
+     * 자동 구성된 (또는 부하 테스트용) ChatModel 을 회로 차단기로 감싸고, 그 바깥에서 모델별 한도를 기다리게 한다.
+     * 한도 대기는 회로 차단기의 느린 호출 판정에 포함되지 않는다.
+     * 회로 상태는 drawer.llm.circuit.state (0: closed, 1: open, 2: half-open) 로 노출한다.
+     */
+    @Bean
+    public static BeanPostProcessor circuitBreakingChatModelPostProcessor(
+            Environment env, ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<ModelGovernor> modelGovernor
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof ChatModel model)
+                        || bean instanceof CircuitBreakingChatModel || bean instanceof GovernedChatModel) {
+                    return bean;
+                }
+
+                CircuitBreaker circuitBreaker = new CircuitBreaker(
+                        env.getRequiredProperty("llm.circuit-breaker.window-size", Integer.class),
+                        env.getRequiredProperty("llm.circuit-breaker.minimum-calls", Integer.class),
+                        env.getRequiredProperty("llm.circuit-breaker.failure-rate-threshold", Double.class),
+                        env.getRequiredProperty("llm.circuit-breaker.open-duration", Duration.class),
+                        env.getRequiredProperty("llm.circuit-breaker.half-open-calls", Integer.class)
+                );
+                Gauge.builder("drawer.llm.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                        .register(meterRegistry.getObject());
+
+                CircuitBreakingChatModel breaking = new CircuitBreakingChatModel(
+                        model, circuitBreaker,
+                        env.getRequiredProperty("llm.circuit-breaker.slow-call-threshold", Duration.class)
+                );
+                return new GovernedChatModel(
+                        breaking, modelGovernor.getObject(),
+                        env.getRequiredProperty("llm.governor.media-tokens", Integer.class)
+                );
+            }
+        };
+    }
+}
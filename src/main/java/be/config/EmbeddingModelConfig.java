@@ -0,0 +1,43 @@
+package be.config;
+
+import be.repository.CachingEmbeddingModel;
+import be.repository.QueryEmbeddingCache;
+import be.service.GovernedEmbeddingModel;
+import be.service.ModelGovernor;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class EmbeddingModelConfig {
+
+    /**
+     * 자동 구성된 (또는 부하 테스트용) EmbeddingModel 을 검색어 임베딩 캐시로 감싼다.
+     * 벡터 저장소 자동 구성이 EmbeddingModel 을 직접 주입받으므로 빈 정의 대신 후처리로 감싼다.
+     * 모델별 한도는 캐시 안쪽에서 기다리므로, 캐시에서 응답한 요청은 한도를 쓰지 않는다.
+     */
+    @Bean
+    public static BeanPostProcessor cachingEmbeddingModelPostProcessor(
+            Environment env,
+            ObjectProvider<QueryEmbeddingCache> queryEmbeddingCache,
+            ObjectProvider<ModelGovernor> modelGovernor
+    ) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EmbeddingModel model
+                        && !(bean instanceof CachingEmbeddingModel) && !(bean instanceof GovernedEmbeddingModel)) {
+                    GovernedEmbeddingModel governed = new GovernedEmbeddingModel(
+                            model, modelGovernor.getObject(),
+                            env.getProperty("spring.ai.google.genai.embedding.text.options.model")
+                    );
+                    return new CachingEmbeddingModel(governed, queryEmbeddingCache.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -6,8 +6,10 @@ import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.JsonMappingException.*;
 import com.fasterxml.jackson.databind.exc.*;
+import jakarta.servlet.http.*;
 import java.util.*;
 import lombok.extern.slf4j.*;
+import org.springframework.http.*;
 import org.springframework.http.converter.*;
 import org.springframework.validation.*;
 import org.springframework.web.bind.*;
@@ -20,7 +22,7 @@ import org.springframework.web.multipart.*;
 public class ExceptionHandlerAdvice {
 
     @ExceptionHandler(CustomException.class)
-    public ApiResponse<Object> customException(CustomException e) {
+    public ApiResponse<Object> customException(CustomException e, HttpServletResponse response) {
 
         int code = e.getCode();
         Object data = e.getData();
@@ -38,6 +40,11 @@ public class ExceptionHandlerAdvice {
             clientShowMsg = e.getMessage();
         }
 
+        if (e instanceof ServiceUnavailableException unavailableEx && unavailableEx.getRetryAfter() != null) {
+            long seconds = Math.max(1, unavailableEx.getRetryAfter().toSeconds());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+
         return ApiResponse.fail(code, data, clientShowMsg);
     }
 
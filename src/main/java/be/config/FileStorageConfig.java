@@ -0,0 +1,98 @@
+package be.config;
+
+import be.service.storage.FileStorage;
+import be.service.storage.LocalFileStorage;
+import be.service.storage.S3FileStorage;
+import be.util.FileUtil;
+import java.net.URI;
+import java.nio.file.Paths;
+import org.springframework.core.env.Environment;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * file-storage.backend 값 (local | s3) 에 따라 파일 저장소 구현을 고른다.
+ * <p>
+ * 조건부 빈 대신 실행 시점에 값을 읽어 고르므로, 같은 빌드 산출물로 두 구성을 모두 띄울 수 있다.
+ * S3 저장소는 {@link AutoCloseable} 이므로 종료할 때 Spring 이 S3 클라이언트와 presigner 를 닫는다.
+ */
+@Configuration
+public class FileStorageConfig {
+
+    /**
+     * S3 multipart upload 의 마지막이 아닌 part 의 최소 크기
+     */
+    private static final DataSize MIN_PART_SIZE = DataSize.ofMegabytes(5);
+
+    @Bean
+    public FileStorage fileStorage(Environment env, FileUtil files) {
+        String backend = env.getProperty("file-storage.backend", "local");
+
+        return switch (backend) {
+            case "local" -> new LocalFileStorage(
+                    Paths.get(env.getRequiredProperty("common-secret.file.main-directory")), files
+            );
+            case "s3" -> s3FileStorage(env);
+            default -> throw new IllegalStateException("Unknown file-storage.backend: " + backend);
+        };
+    }
+
+    private S3FileStorage s3FileStorage(Environment env) {
+        DataSize partSize = env.getProperty("file-storage.s3.part-size", DataSize.class, DataSize.ofMegabytes(8));
+        if (partSize.compareTo(MIN_PART_SIZE) < 0 || partSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                    "file-storage.s3.part-size must be between 5MB and 2GB: " + partSize
+            );
+        }
+
+        Region region = Region.of(env.getRequiredProperty("file-storage.s3.region"));
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                env.getRequiredProperty("file-storage.s3.access-key"),
+                env.getRequiredProperty("file-storage.s3.secret-key")
+        ));
+        S3Configuration s3Config = S3Configuration.builder()
+                .pathStyleAccessEnabled(env.getProperty("file-storage.s3.path-style", Boolean.class, false))
+                .build();
+        String endpoint = env.getProperty("file-storage.s3.endpoint", "");
+
+        var clientBuilder = S3Client.builder()
+                .region(region)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Config);
+        var presignerBuilder = S3Presigner.builder()
+                .region(region)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Config);
+
+        if (!endpoint.isBlank()) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+
+        S3FileStorage storage = new S3FileStorage(
+                clientBuilder.build(),
+                presignerBuilder.build(),
+                env.getRequiredProperty("file-storage.s3.bucket"),
+                env.getProperty("file-storage.s3.key-prefix", ""),
+                (int) partSize.toBytes()
+        );
+
+        if (env.getProperty("file-storage.s3.create-bucket", Boolean.class, false)) {
+            try {
+                storage.createBucketIfMissing();
+            } catch (RuntimeException e) {
+                // 빈이 만들어지지 않으면 Spring 이 닫아 주지 않는다
+                storage.close();
+                throw e;
+            }
+        }
+        return storage;
+    }
+}
@@ -1,6 +1,8 @@
 package be.config;
 
+import be.util.metric.*;
 import jakarta.servlet.*;
+import jakarta.servlet.http.*;
 import java.util.*;
 import org.slf4j.*;
 import org.springframework.beans.factory.annotation.*;
@@ -10,23 +12,33 @@ import org.springframework.stereotype.*;
 public class RequestIdInjector implements ServletRequestListener {
     
     private final String requestIdMdcKey;
+    private final StageTimingRecorder stageTimingRecorder;
 
     public RequestIdInjector(
             @Value("${mdc-key.request-id}")
-            String requestIdMdcKey
+            String requestIdMdcKey,
+            StageTimingRecorder stageTimingRecorder
     ) {
         this.requestIdMdcKey = requestIdMdcKey;
+        this.stageTimingRecorder = stageTimingRecorder;
     }
 
     @Override
     public void requestInitialized(ServletRequestEvent sre) {
+        String requestId = this.getRandomId();
         MDC.put(
-                requestIdMdcKey, this.getRandomId()
+                requestIdMdcKey, requestId
         );
+        stageTimingRecorder.begin(requestId);
     }
 
     @Override
     public void requestDestroyed(ServletRequestEvent sre) {
+        if (sre.getServletRequest() instanceof HttpServletRequest request) {
+            stageTimingRecorder.end(
+                    currentRequestId(), request.getMethod(), request.getRequestURI()
+            );
+        }
         MDC.remove(requestIdMdcKey);
     }
 
@@ -0,0 +1,100 @@
+package be.config;
+
+import be.util.metric.*;
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import java.io.*;
+import lombok.*;
+import org.springframework.core.*;
+import org.springframework.core.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.web.filter.*;
+
+/**
+ * 요청의 단계별 소요 시간을 Server-Timing 헤더로 내려준다.
+ * <p>
+ * 본문이 없는 응답 (304, 다운로드 302) 도 헤더를 받도록 응답 본문 advice 가 아니라 필터에서 처리한다.
+ * 헤더는 응답이 커밋되기 직전 (본문을 쓰기 시작하거나 flush, redirect, error 를 보낼 때) 에 정하고,
+ * 그때까지 커밋되지 않았으면 체인이 끝난 뒤에 정한다.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final RequestIdInjector requestIdInjector;
+    private final StageTimingRecorder stageTimingRecorder;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String requestId = requestIdInjector.currentRequestId();
+        TimingResponse timingResponse = new TimingResponse(response, requestId);
+        try {
+            filterChain.doFilter(request, timingResponse);
+        } finally {
+            timingResponse.writeServerTiming();
+        }
+    }
+
+    private final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final String requestId;
+        private boolean written;
+
+        private TimingResponse(HttpServletResponse response, String requestId) {
+            super(response);
+            this.requestId = requestId;
+        }
+
+        private void writeServerTiming() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            stageTimingRecorder.serverTiming(requestId)
+                    .ifPresent(timing -> setHeader(SERVER_TIMING, timing));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeServerTiming();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeServerTiming();
+            super.sendError(sc, msg);
+        }
+    }
+}
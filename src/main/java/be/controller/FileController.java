@@ -5,13 +5,21 @@ import be.domain.*;
 import be.domain.exception.*;
 import be.service.*;
 import be.util.api.*;
+import be.util.exception.*;
 import io.swagger.v3.oas.annotations.media.*;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import jakarta.servlet.http.*;
+import jakarta.validation.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.*;
 import lombok.*;
 import lombok.extern.slf4j.*;
+import org.springframework.core.io.*;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.*;
 import org.springframework.web.multipart.*;
 
 @Slf4j
@@ -23,16 +31,54 @@ public class FileController {
     private final FileService fileService;
     private final FileIO fileIO;
     private final ContentTypeValidator contentTypeValidator;
+    private final IngestAdmission ingestAdmission;
+    private final FacetCounter facetCounter;
 
+    /**
+     * 목록이 바뀌지 않았으면 (If-None-Match 일치) DB 조회와 직렬화 없이 304 로 응답한다.
+     * <p>
+     * category, tag 는 여러 번 줄 수 있으며 match 가 all 이면 모두, any 면 하나라도 가진 파일을 고른다. type 은 항상 만족해야 한다.
+     * 카테고리 하나 이하로만 거르면 목록 캐시를 쓰고, 그 밖의 조합은 {@link FileBitmapIndex} 로 고른다.
+     */
     @GetMapping
     public ApiResponse<List<File>> getFiles(
-            @RequestParam(required = false) String category,
-            @RequestParam(required = false) String type
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> tag,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "all") String match,
+            WebRequest webRequest
     ) {
-        Category cat = Category.resolveOrNull(category);
+        FileFilter.Match matchMode = FileFilter.Match.resolveOrNull(match);
+        if (matchMode == null) {
+            throw new BadRequestException("match 는 all 또는 any 여야 합니다: " + match);
+        }
+
+        Set<Category> categories = EnumSet.noneOf(Category.class);
+        if (category != null) {
+            category.stream().map(Category::resolveOrNull).filter(Objects::nonNull).forEach(categories::add);
+        }
+        Set<String> tags = new HashSet<>();
+        if (tag != null) {
+            tag.stream().filter(Objects::nonNull).map(String::strip).filter(t -> !t.isEmpty()).forEach(tags::add);
+        }
         FileType fileType = FileType.resolveOrNull(type);
 
-        List<File> resp = fileService.getFiles(cat, fileType);
+        if (tags.isEmpty() && categories.size() <= 1) {
+            Category cat = categories.isEmpty() ? null : categories.iterator().next();
+            if (webRequest.checkNotModified(fileService.getListingETag(cat, fileType))) {
+                fileService.recordListingVisit(cat);
+                return null;
+            }
+            return ApiResponse.success(fileService.getFiles(cat, fileType));
+        }
+
+        FileFilter filter = new FileFilter(categories, tags, fileType, matchMode);
+        if (webRequest.checkNotModified(fileService.getFilterETag(filter))) {
+            categories.forEach(fileService::recordListingVisit);
+            return null;
+        }
+
+        List<File> resp = fileService.getFiles(filter);
 
         return ApiResponse.success(resp);
     }
@@ -43,29 +89,107 @@ public class FileController {
             @RequestParam(required = false) Integer topK,
             @RequestParam(required = false) Double similarityThreshold,
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) String type
+            @RequestParam(required = false) String type,
+            WebRequest webRequest
     ) {
         Category cat = Category.resolveOrNull(category);
         FileType fileType = FileType.resolveOrNull(type);
-        
+
+        String etag = fileService.getSearchETag(query, topK, similarityThreshold, cat, fileType);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         List<File> results = fileService.searchFiles(query, topK, similarityThreshold, cat, fileType);
         return ApiResponse.success(results);
     }
 
-    @GetMapping("/{file-id:\\d+}")
-    public ResponseEntity<byte[]> getFile(
+    /**
+     * 삭제 표시만 하고 바로 응답한다. 벡터와 파일 내용은 백그라운드에서 정리된다.
+     */
+    @DeleteMapping("/{file-id:\\d+}")
+    public ApiResponse<Void> deleteFile(
             @PathVariable("file-id") Long fileId
     ) {
+        fileService.deleteFile(fileId);
+        return ApiResponse.accepted(null);
+    }
+
+    /**
+     * 여러 파일을 한 번에 삭제 표시한다. 이미 없는 id 는 건너뛰며, 새로 삭제 표시한 수를 돌려준다.
+     */
+    @PostMapping("/bulk-delete")
+    public ApiResponse<Integer> deleteFiles(
+            @Valid @org.springframework.web.bind.annotation.RequestBody BulkDeleteRequest request
+    ) {
+        return ApiResponse.accepted(fileService.deleteFiles(request.fileIds()));
+    }
+
+    /**
+     * 여러 검색어를 한 번에 검색한다. 검색어마다 topK, 임계값, 필터를 따로 가지며 결과는 요청 순서대로다.
+     */
+    @PostMapping("/search/batch")
+    public ApiResponse<List<List<File>>> searchFilesBatch(
+            @Valid @org.springframework.web.bind.annotation.RequestBody BatchSearchRequest request
+    ) {
+        return ApiResponse.success(fileService.searchFilesBatch(request.queries()));
+    }
+
+    /**
+     * 저장소가 presigned URL 을 지원하면 302 로 넘겨 바이트가 애플리케이션을 거치지 않게 하고,
+     * 그렇지 않으면 저장소 스트림을 그대로 흘려보낸다.
+     * <p>
+     * 압축 저장된 파일은 Accept-Encoding 이 맞으면 저장된 바이트를 Content-Encoding 과 함께 그대로 보내고,
+     * 아니면 풀어서 보낸다.
+     */
+    @GetMapping("/{file-id:\\d+}")
+    public ResponseEntity<Resource> getFile(
+            @PathVariable("file-id") Long fileId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
 
         FileInfo info = fileService.getFileInfo(fileId);
         String fileName = info.savedFileName();
         MediaType fileMediaType = info.fileMediaType();
+        StoredEncoding encoding = info.storedEncoding();
 
-        byte[] file = fileIO.getFileData(fileName);
+        Optional<URI> redirect = fileIO.downloadRedirect(fileName, fileMediaType, encoding, acceptEncoding);
+        if (redirect.isPresent()) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(redirect.get())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        boolean passthrough = encoding != StoredEncoding.IDENTITY && encoding.acceptedBy(acceptEncoding);
+        InputStream file = fileIO.openFileData(fileName, encoding, !passthrough);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(fileMediaType);
+        if (encoding != StoredEncoding.IDENTITY) {
+            builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (passthrough) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, encoding.getContentCoding());
+        }
 
-        return ResponseEntity.ok()
-                .contentType(fileMediaType)
-                .body(file);
+        return builder.body(new InputStreamResource(file));
+    }
+
+    /**
+     * 미디어 타입별 원본 크기 대비 실제 저장 크기.
+     */
+    @GetMapping("/storage-savings")
+    public ApiResponse<List<StorageSavings>> getStorageSavings() {
+        return ApiResponse.success(fileService.getStorageSavings());
+    }
+
+    /**
+     * 카테고리별, 파일 타입별 파일 수. 저장과 삭제 때 갱신되는 집계에서 읽으므로 파일 수와 무관하게 일정하다.
+     */
+    @GetMapping("/facets")
+    public ApiResponse<FileFacets> getFacets() {
+        return ApiResponse.success(facetCounter.getFacets());
     }
 
     @RequestBody(
@@ -76,16 +200,32 @@ public class FileController {
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ApiResponse<File> saveFile(
             @RequestPart MultipartFile multipartFile
-    ) {
-        String contentType = multipartFile.getContentType();
-        if (!contentTypeValidator.acceptableType(contentType)) {
-            throw new UnacceptableContentTypeException(String.format(
-                    "허용되지 않는 파일 형식입니다: %s",
-                    contentType
-            ));
+    ) throws IOException {
+        MediaTypeRegistry.Entry mediaType = contentTypeValidator.requireAcceptable(multipartFile.getContentType());
+        contentTypeValidator.requireMatchingContent(mediaType, multipartFile);
+
+        try (IngestAdmission.Ticket ticket = ingestAdmission.admit(multipartFile.getSize())) {
+            File file = fileService.saveFile(multipartFile);
+            return ApiResponse.created(file);
         }
+    }
 
-        File file = fileService.saveFile(multipartFile);
-        return ApiResponse.created(file);
+    /**
+     * multipart 대신 요청 본문 자체를 파일 내용으로 받아, 임시 파일 없이 최종 저장소에 바로 기록한다.
+     * 본문의 첫 블록으로 형식을 확인한 뒤에 저장을 시작한다.
+     */
+    @PostMapping("/stream")
+    public ApiResponse<File> saveFileStream(
+            @RequestParam String fileName,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request
+    ) throws IOException {
+        MediaTypeRegistry.Entry mediaType = contentTypeValidator.requireAcceptable(contentType);
+        InputStream content = contentTypeValidator.requireMatchingContent(mediaType, request.getInputStream());
+
+        try (IngestAdmission.Ticket ticket = ingestAdmission.admit(request.getContentLengthLong())) {
+            File file = fileService.saveFile(content, fileName, contentType);
+            return ApiResponse.created(file);
+        }
     }
 }
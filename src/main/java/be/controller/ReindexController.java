@@ -0,0 +1,54 @@
+package be.controller;
+
+import be.domain.*;
+import be.service.*;
+import be.util.api.*;
+import lombok.*;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 전체 파일 재임베딩 작업 관리. 임베딩 모델이나 문서 구성이 바뀌었을 때 사용한다.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/reindex")
+public class ReindexController {
+
+    private final ReindexService reindexService;
+
+    /**
+     * shadow 가 true 면 새 컬렉션에 기록하고, 완료 후 switch 로 검색을 전환한다.
+     */
+    @PostMapping
+    public ApiResponse<ReindexJob> startReindex(
+            @RequestParam(defaultValue = "true") boolean shadow
+    ) {
+        return ApiResponse.accepted(reindexService.start(shadow));
+    }
+
+    @GetMapping
+    public ApiResponse<ReindexJob> getLatestReindex() {
+        return ApiResponse.success(reindexService.getLatestJob().orElse(null));
+    }
+
+    @GetMapping("/{job-id}")
+    public ApiResponse<ReindexJob> getReindex(
+            @PathVariable("job-id") Long jobId
+    ) {
+        return ApiResponse.success(reindexService.getJob(jobId));
+    }
+
+    @PostMapping("/{job-id}/resume")
+    public ApiResponse<ReindexJob> resumeReindex(
+            @PathVariable("job-id") Long jobId
+    ) {
+        return ApiResponse.accepted(reindexService.resume(jobId));
+    }
+
+    @PostMapping("/{job-id}/switch")
+    public ApiResponse<ReindexJob> switchCollection(
+            @PathVariable("job-id") Long jobId
+    ) {
+        return ApiResponse.success(reindexService.switchTo(jobId));
+    }
+}
@@ -1,5 +1,9 @@
 package be.controller;
 
+import be.controller.dto.*;
+import be.service.*;
+import be.util.api.*;
+import java.util.*;
 import lombok.*;
 import org.springframework.web.bind.annotation.*;
 
@@ -8,7 +12,18 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/tag")
 public class TagController {
 
+    private final TagSuggestIndex tagSuggestIndex;
 
-
-
+    /**
+     * 접두어로 시작하는 태그를 파일 수가 많은 순으로 돌려준다. 대소문자, 공백, 악센트를 무시하며
+     * 한글은 자모 단위로 비교하므로 완성되지 않은 음절로도 찾는다. 접두어가 비어 있으면 전체 상위 태그다.
+     */
+    @GetMapping("/suggest")
+    public ApiResponse<List<TagSuggestion>> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer limit
+    ) {
+        int resolved = limit == null || limit < 1 ? 10 : Math.min(limit, TagSuggestIndex.MAX_SUGGESTIONS);
+        return ApiResponse.success(tagSuggestIndex.suggest(prefix, resolved));
+    }
 }
@@ -0,0 +1,13 @@
+package be.controller.dto;
+
+import jakarta.validation.*;
+import jakarta.validation.constraints.*;
+import java.util.*;
+
+public record BatchSearchRequest(
+        @NotEmpty
+        @Size(max = 20)
+        List<@Valid SearchQuery> queries
+) {
+
+}
@@ -0,0 +1,12 @@
+package be.controller.dto;
+
+import jakarta.validation.constraints.*;
+import java.util.*;
+
+public record BulkDeleteRequest(
+        @NotEmpty
+        @Size(max = 1000)
+        List<@NotNull Long> fileIds
+) {
+
+}
@@ -0,0 +1,14 @@
+package be.controller.dto;
+
+import be.domain.*;
+import java.util.*;
+
+/**
+ * 삭제되지 않은 파일의 카테고리별, 파일 타입별 개수. 여러 카테고리를 가진 파일은 각 카테고리에 한 번씩 센다.
+ */
+public record FileFacets(
+        Map<Category, Long> categories,
+        Map<FileType, Long> fileTypes
+) {
+
+}
@@ -1,11 +1,13 @@
 package be.controller.dto;
 
+import be.domain.*;
 import org.springframework.http.*;
 
 public record FileInfo(
         Long fileId,
         MediaType fileMediaType,
-        String savedFileName
+        String savedFileName,
+        StoredEncoding storedEncoding
 ) {
 
 }
@@ -0,0 +1,14 @@
+package be.controller.dto;
+
+import jakarta.validation.constraints.*;
+
+public record SearchQuery(
+        @NotBlank
+        String query,
+        Integer topK,
+        Double similarityThreshold,
+        String category,
+        String type
+) {
+
+}
@@ -0,0 +1,18 @@
+package be.controller.dto;
+
+public record StorageSavings(
+        String mediaType,
+        long fileCount,
+        long originalBytes,
+        long storedBytes,
+        long savedBytes,
+        double storedRatio
+) {
+
+    public static StorageSavings of(String mediaType, long fileCount, long originalBytes, long storedBytes) {
+        double ratio = originalBytes == 0 ? 1.0 : (double) storedBytes / originalBytes;
+        return new StorageSavings(
+                mediaType, fileCount, originalBytes, storedBytes, originalBytes - storedBytes, ratio
+        );
+    }
+}
@@ -0,0 +1,11 @@
+package be.controller.dto;
+
+/**
+ * @param fileCount 이 태그가 붙은 삭제되지 않은 파일 수
+ */
+public record TagSuggestion(
+        String description,
+        long fileCount
+) {
+
+}
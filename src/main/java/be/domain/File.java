@@ -1,9 +1,11 @@
 package be.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.http.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,6 +40,42 @@ public class File extends BaseTimeEntity implements EntityId<Long> {
     @Column(nullable = false, unique = true)
     private String savedFileName;
 
+    @Column(updatable = false)
+    private Long fileSize;
+
+    @Column(updatable = false, length = 64)
+    private String contentDigest;
+
+    @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
+    private StoredEncoding storedEncoding;
+
+    @Column(updatable = false)
+    private Long storedSize;
+
+    /**
+     * 삭제 요청 시각. 값이 있으면 목록과 검색에서 숨기며, reaper 가 벡터와 파일 내용을 지운 뒤 행을 삭제한다.
+     */
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
+    /**
+     * reaper 가 파일 내용 삭제에 실패한 횟수와 다음 시도 시각. 실패한 파일이 배치 앞자리를 막지 않도록 미룬다.
+     */
+    @JsonIgnore
+    private int reapAttempts;
+
+    @JsonIgnore
+    private LocalDateTime nextReapAt;
+
+    /**
+     * LLM 분석 일부가 deadline 안에 끝나지 않아 대체 값으로 저장됐으면 true. FileReEnricher 가 다시 분석한다.
+     */
+    private boolean needsEnrichment;
+
+    @JsonIgnore
+    private int enrichmentAttempts;
+
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "file_tag_join",
@@ -49,7 +87,8 @@ public class File extends BaseTimeEntity implements EntityId<Long> {
     @Builder
     public File(
             String fileOverview, List<Category> categories, FileType fileType,
-            String originalFileName, String savedFileName, String fileMediaType
+            String originalFileName, String savedFileName, String fileMediaType,
+            Long fileSize, String contentDigest, StoredEncoding storedEncoding, Long storedSize
     ) {
         this.fileOverview = fileOverview;
         this.categories = categories;
@@ -57,10 +96,49 @@ public class File extends BaseTimeEntity implements EntityId<Long> {
         this.originalFileName = originalFileName;
         this.savedFileName = savedFileName;
         this.fileMediaType = fileMediaType;
+        this.fileSize = fileSize;
+        this.contentDigest = contentDigest;
+        this.storedEncoding = storedEncoding;
+        this.storedSize = storedSize;
+    }
+
+    /**
+     * 압축 저장 도입 이전의 파일은 인코딩이 기록돼 있지 않으며, 원본 그대로 저장돼 있다.
+     */
+    public StoredEncoding getStoredEncoding() {
+        return storedEncoding == null ? StoredEncoding.IDENTITY : storedEncoding;
     }
 
     public MediaType getFileMediaType() {
-        return MediaType.parseMediaType(this.fileMediaType);
+        return MediaTypeRegistry.lookup(this.fileMediaType).mediaType();
+    }
+
+    @JsonIgnore
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
+
+    public void markDeleted() {
+        if (deletedAt == null) {
+            deletedAt = LocalDateTime.now();
+        }
+    }
+
+    public void deferReap(LocalDateTime retryAt) {
+        this.reapAttempts++;
+        this.nextReapAt = retryAt;
+    }
+
+    public void requireEnrichment() {
+        this.needsEnrichment = true;
+    }
+
+    /**
+     * 재분석 결과를 기록한다. 모든 단계가 성공했으면 더 이상 재분석하지 않는다.
+     */
+    public void recordEnrichmentAttempt(boolean complete) {
+        this.enrichmentAttempts++;
+        this.needsEnrichment = !complete;
     }
 
     public void enrichMetadata(String fileOverview, List<Category> category, List<Tag> tags) {
@@ -0,0 +1,50 @@
+package be.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 삭제되지 않은 파일의 카테고리별, 파일 타입별 개수. 파일 저장, 삭제, 재분류와 같은 트랜잭션에서 증감한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class FileFacetCount {
+
+    /**
+     * "CATEGORY:FINANCE" 처럼 facet 과 값을 이은 키.
+     */
+    @Id
+    @Column(length = 80)
+    private String facetKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 20)
+    private Facet facet;
+
+    @Column(nullable = false, updatable = false, length = 50)
+    private String facetValue;
+
+    @Column(nullable = false)
+    private long fileCount;
+
+    public FileFacetCount(Facet facet, String facetValue, long fileCount) {
+        this.facetKey = key(facet, facetValue);
+        this.facet = facet;
+        this.facetValue = facetValue;
+        this.fileCount = fileCount;
+    }
+
+    public static String key(Facet facet, String facetValue) {
+        return facet.name() + ":" + facetValue;
+    }
+
+    public enum Facet {
+        CATEGORY,
+        FILE_TYPE,
+        /**
+         * 기존 파일로 한 번 채웠음을 나타내는 표시 행. 개수로 쓰지 않는다.
+         */
+        BACKFILL
+    }
+}
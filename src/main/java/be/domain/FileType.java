@@ -7,6 +7,7 @@ import lombok.*;
 @RequiredArgsConstructor
 public enum FileType {
     IMAGE_VIDEO("이미지 및 비디오"),
+    AUDIO("오디오"),
     DOCUMENT("문서"),
     LINK("링크"),
     ETC("기타");
@@ -32,6 +33,11 @@ public enum FileType {
             return IMAGE_VIDEO;
         }
 
+        // 오디오
+        if (lowerMediaType.startsWith("audio/")) {
+            return AUDIO;
+        }
+
         // 문서
         if (lowerMediaType.startsWith("text/") ||
             lowerMediaType.startsWith("application/pdf") ||
@@ -0,0 +1,19 @@
+package be.domain;
+
+/**
+ * 분석 요청에 파일 내용을 어떻게 첨부할지.
+ */
+public enum IngestStrategy {
+    /**
+     * 파일 전체를 첨부한다.
+     */
+    INLINE,
+    /**
+     * 앞부분과 표본 구간만 잘라 첨부한다. 자를 수 없으면 BOUNDED_INLINE 처럼 다룬다.
+     */
+    AUDIO_EXCERPT,
+    /**
+     * 정해진 크기 이하일 때만 전체를 첨부하고, 그보다 크면 이름만으로 분석한다.
+     */
+    BOUNDED_INLINE
+}
@@ -0,0 +1,164 @@
+package be.domain;
+
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.springframework.http.*;
+
+/**
+ * 미디어 타입별 허용 여부, {@link FileType}, {@link IngestStrategy}, 매직 바이트 규칙을 한 번에 찾는다.
+ * <p>
+ * 규칙은 type/subtype 로 먼저 찾고, 없으면 type/* 로 찾는다. 어느 규칙에도 없는 타입은 허용하지 않는다.
+ * 조회 결과는 Content-Type 문자열마다 한 번 만들어 보관하므로 같은 문자열은 파싱된 같은 {@link MediaType} 을 돌려받는다.
+ * 보관 개수는 MAX_CACHED 로 제한하며, 넘치면 보관하지 않고 매번 만든다.
+ */
+public final class MediaTypeRegistry {
+
+    /**
+     * 내용 검사에 쓰는 업로드 앞부분의 최대 길이.
+     */
+    public static final int SNIFF_LENGTH = 4096;
+
+    private static final int MAX_CACHED = 1024;
+
+    private static final Map<String, Rule> RULES = new HashMap<>();
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final Entry UNRECOGNIZED = new Entry(
+            MediaType.APPLICATION_OCTET_STREAM, false, FileType.ETC, IngestStrategy.INLINE, null
+    );
+
+    static {
+        rule("text/*", IngestStrategy.INLINE, MediaTypeRegistry::looksLikeText);
+        rule("application/pdf", IngestStrategy.INLINE, startsWith("%PDF-"));
+        rule("image/png", IngestStrategy.INLINE, startsWith(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+        rule("image/jpeg", IngestStrategy.INLINE, startsWith(0xFF, 0xD8, 0xFF));
+
+        Predicate<byte[]> wav = startsWith("RIFF").and(at(8, "WAVE"));
+        for (String type : List.of("audio/wav", "audio/x-wav", "audio/wave", "audio/vnd.wave")) {
+            rule(type, IngestStrategy.AUDIO_EXCERPT, wav);
+        }
+        Predicate<byte[]> mp3 = startsWith("ID3").or(MediaTypeRegistry::startsWithMpegFrame);
+        for (String type : List.of("audio/mpeg", "audio/mp3", "audio/mpeg3", "audio/x-mpeg-3")) {
+            rule(type, IngestStrategy.AUDIO_EXCERPT, mp3);
+        }
+        rule("audio/ogg", IngestStrategy.BOUNDED_INLINE, startsWith("OggS"));
+        rule("audio/flac", IngestStrategy.BOUNDED_INLINE, startsWith("fLaC"));
+        rule("audio/x-flac", IngestStrategy.BOUNDED_INLINE, startsWith("fLaC"));
+        rule("audio/mp4", IngestStrategy.BOUNDED_INLINE, at(4, "ftyp"));
+        rule("audio/x-m4a", IngestStrategy.BOUNDED_INLINE, at(4, "ftyp"));
+        rule("audio/webm", IngestStrategy.BOUNDED_INLINE, startsWith(0x1A, 0x45, 0xDF, 0xA3));
+        rule("audio/*", IngestStrategy.BOUNDED_INLINE, null);
+    }
+
+    private MediaTypeRegistry() {
+    }
+
+    /**
+     * @param contentType 클라이언트가 보낸 Content-Type. null 이거나 파싱할 수 없으면 허용되지 않는 항목을 돌려준다
+     */
+    public static Entry lookup(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return UNRECOGNIZED;
+        }
+
+        Entry cached = ENTRIES.get(contentType);
+        if (cached != null) {
+            return cached;
+        }
+        Entry entry = resolve(contentType);
+        if (ENTRIES.size() < MAX_CACHED) {
+            Entry raced = ENTRIES.putIfAbsent(contentType, entry);
+            return raced == null ? entry : raced;
+        }
+        return entry;
+    }
+
+    private static Entry resolve(String contentType) {
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return UNRECOGNIZED;
+        }
+
+        String type = mediaType.getType() + "/" + mediaType.getSubtype();
+        Rule rule = RULES.getOrDefault(type, RULES.get(mediaType.getType() + "/*"));
+        FileType fileType = FileType.fromMediaType(type);
+        if (rule == null) {
+            return new Entry(mediaType, false, fileType, IngestStrategy.INLINE, null);
+        }
+        return new Entry(mediaType, true, fileType, rule.ingestStrategy(), rule.signature());
+    }
+
+    private static void rule(String type, IngestStrategy ingestStrategy, Predicate<byte[]> signature) {
+        RULES.put(type, new Rule(ingestStrategy, signature));
+    }
+
+    private static Predicate<byte[]> startsWith(String prefix) {
+        return at(0, prefix);
+    }
+
+    private static Predicate<byte[]> startsWith(int... prefix) {
+        return head -> {
+            if (head.length < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if ((head[i] & 0xFF) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static Predicate<byte[]> at(int offset, String ascii) {
+        byte[] expected = ascii.getBytes(StandardCharsets.US_ASCII);
+        return head -> head.length >= offset + expected.length
+                       && Arrays.equals(head, offset, offset + expected.length, expected, 0, expected.length);
+    }
+
+    private static boolean startsWithMpegFrame(byte[] head) {
+        return head.length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xE0) == 0xE0;
+    }
+
+    /**
+     * NUL 이 없으면 텍스트로 본다. UTF-16 은 BOM 이 있을 때만 허용한다.
+     */
+    private static boolean looksLikeText(byte[] head) {
+        if (head.length >= 2 && ((head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE
+                                 || (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF)) {
+            return true;
+        }
+        for (byte b : head) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Rule(IngestStrategy ingestStrategy, Predicate<byte[]> signature) {
+
+    }
+
+    /**
+     * @param signature 내용 앞부분이 이 형식인지 검사한다. null 이면 검사하지 않는다
+     */
+    public record Entry(
+            MediaType mediaType,
+            boolean acceptable,
+            FileType fileType,
+            IngestStrategy ingestStrategy,
+            Predicate<byte[]> signature
+    ) {
+
+        /**
+         * @param head 내용 앞부분. 최대 {@link #SNIFF_LENGTH} 바이트
+         */
+        public boolean matchesContent(byte[] head) {
+            return signature == null || head.length == 0 || signature.test(head);
+        }
+    }
+}
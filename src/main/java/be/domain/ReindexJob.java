@@ -0,0 +1,85 @@
+package be.domain;
+
+import jakarta.persistence.*;
+import java.time.*;
+import lombok.*;
+
+/**
+ * 전체 파일 재임베딩 작업. lastFileId 까지 처리됐다는 체크포인트를 함께 기록해, 중단된 뒤에도 이어서 진행한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class ReindexJob extends BaseTimeEntity implements EntityId<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 문서를 기록할 벡터 컬렉션. 현재 검색 중인 컬렉션과 다르면 shadow 컬렉션이다.
+     */
+    @Column(nullable = false, updatable = false)
+    private String targetCollection;
+
+    @Column(nullable = false, updatable = false)
+    private boolean shadow;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private long lastFileId;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime finishedAt;
+
+    @Builder
+    public ReindexJob(String targetCollection, boolean shadow) {
+        this.targetCollection = targetCollection;
+        this.shadow = shadow;
+        this.status = Status.RUNNING;
+    }
+
+    public void checkpoint(long lastFileId, long processedInBatch) {
+        this.lastFileId = lastFileId;
+        this.processed += processedInBatch;
+    }
+
+    public void resume() {
+        this.status = Status.RUNNING;
+        this.lastError = null;
+        this.finishedAt = null;
+    }
+
+    public void complete() {
+        this.status = Status.COMPLETED;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public void fail(String error) {
+        this.status = Status.FAILED;
+        this.lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public void markSwitched() {
+        this.status = Status.SWITCHED;
+    }
+
+    public enum Status {
+        RUNNING,
+        FAILED,
+        COMPLETED,
+        /**
+         * 완료된 shadow 컬렉션으로 검색이 전환됨
+         */
+        SWITCHED
+    }
+}
@@ -0,0 +1,43 @@
+package be.domain;
+
+import java.util.*;
+import lombok.*;
+
+/**
+ * 저장소에 기록된 파일 내용의 인코딩. contentCoding 은 HTTP Content-Encoding 토큰이다.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum StoredEncoding {
+    IDENTITY("identity"),
+    GZIP("gzip");
+
+    private final String contentCoding;
+
+    /**
+     * Accept-Encoding 헤더가 이 인코딩을 허용하는지. q=0 으로 명시적으로 거부한 경우는 허용하지 않는다.
+     */
+    public boolean acceptedBy(String acceptEncoding) {
+        if (this == IDENTITY) {
+            return true;
+        }
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            boolean rejected = tokens.length > 1 && tokens[1].trim().matches("q=0(\\.0*)?");
+
+            if (coding.equals(contentCoding)) {
+                return !rejected;
+            }
+            if (coding.equals("*")) {
+                wildcard = !rejected;
+            }
+        }
+        return wildcard;
+    }
+}
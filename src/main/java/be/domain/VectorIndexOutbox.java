@@ -0,0 +1,71 @@
+package be.domain;
+
+import jakarta.persistence.*;
+import java.time.*;
+import lombok.*;
+
+/**
+ * 벡터 저장소에 반영할 파일. 파일 저장과 같은 트랜잭션에 기록되며, 색인기가 꺼내 처리한 뒤 지운다.
+ * 정해진 횟수만큼 실패한 항목은 dead letter 로 남겨 더 꺼내지 않는다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(indexes = @Index(name = "idx_vector_index_outbox_next_attempt", columnList = "nextAttemptAt, id"))
+public class VectorIndexOutbox extends AuditingCreation implements EntityId<Long> {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private Long fileId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    /**
+     * 값이 있으면 더 시도하지 않는다. 원인을 고친 뒤 재색인하거나 행을 지워 정리한다.
+     */
+    private LocalDateTime deadLetteredAt;
+
+    @Builder
+    public VectorIndexOutbox(Long fileId, LocalDateTime nextAttemptAt) {
+        this.fileId = fileId;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public static VectorIndexOutbox of(Long fileId) {
+        return VectorIndexOutbox.builder()
+                .fileId(fileId)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 처리 중인 동안 다른 색인기가 가져가지 않도록 lease 만큼 미룬다.
+     */
+    public void claim(LocalDateTime leaseUntil) {
+        this.nextAttemptAt = leaseUntil;
+    }
+
+    public void fail(String error, LocalDateTime retryAt) {
+        this.attempts++;
+        this.lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        this.nextAttemptAt = retryAt;
+    }
+
+    public void deadLetter(LocalDateTime now) {
+        this.deadLetteredAt = now;
+    }
+
+    public boolean isDeadLettered() {
+        return deadLetteredAt != null;
+    }
+}
@@ -0,0 +1,13 @@
+package be.domain.exception;
+
+import be.util.exception.*;
+import java.time.*;
+
+public class FilterIndexNotReadyException extends ServiceUnavailableException {
+
+    private static final String message = "태그 필터를 준비하고 있습니다. %d초 후 다시 시도해 주세요.";
+
+    public FilterIndexNotReadyException(Duration retryAfter) {
+        super(String.format(message, retryAfter.toSeconds()), null, retryAfter);
+    }
+}
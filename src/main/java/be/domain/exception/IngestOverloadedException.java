@@ -0,0 +1,13 @@
+package be.domain.exception;
+
+import be.util.exception.*;
+import java.time.*;
+
+public class IngestOverloadedException extends ServiceUnavailableException {
+
+    private static final String message = "업로드 요청이 많아 지금은 처리할 수 없습니다. %d초 후 다시 시도해 주세요.";
+
+    public IngestOverloadedException(Duration retryAfter) {
+        super(String.format(message, retryAfter.toSeconds()), null, retryAfter);
+    }
+}
@@ -0,0 +1,16 @@
+package be.domain.exception;
+
+import be.util.exception.*;
+import java.time.*;
+
+public class LlmUnavailableException extends ServiceUnavailableException {
+
+    private static final String message = "AI 분석 서비스가 일시적으로 응답하지 않습니다. 잠시 후 다시 시도해 주세요.";
+
+    /**
+     * @param retryAfter 회로가 다시 시험 호출을 허용하기까지 남은 시간. half-open 시험 중이면 0 이다
+     */
+    public LlmUnavailableException(Duration retryAfter) {
+        super(message, null, retryAfter);
+    }
+}
@@ -0,0 +1,10 @@
+package be.domain.exception;
+
+import be.util.exception.*;
+
+public class ReindexConflictException extends ConflictException {
+
+    public ReindexConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package be.domain.exception;
+
+import be.util.exception.*;
+
+public class ReindexJobNotFoundException extends NotFoundException {
+
+    private static final String message = "주어진 재색인 작업을 찾을 수 없습니다.";
+
+    public ReindexJobNotFoundException() {
+        super(message);
+    }
+}
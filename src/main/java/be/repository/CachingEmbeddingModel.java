@@ -0,0 +1,49 @@
+package be.repository;
+
+import java.util.*;
+import org.springframework.ai.document.*;
+import org.springframework.ai.embedding.*;
+
+/**
+ * 검색어 임베딩이 {@link QueryEmbeddingCache} 에 있으면 모델을 호출하지 않는 EmbeddingModel.
+ * <p>
+ * 벡터 저장소는 검색어를 직접 임베딩하므로, 미리 계산한 임베딩을 넘길 다른 방법이 없다.
+ * 캐시는 벡터 저장소가 검색어 하나를 임베딩하는 {@link #embed(String)} 에만 적용한다. 문서 색인과 그 밖의 요청은
+ * 텍스트가 검색어와 같더라도 그대로 모델로 전달된다.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final QueryEmbeddingCache cache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, QueryEmbeddingCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        Optional<float[]> cached = cache.get(QueryEmbeddingCache.QUERY_OPTIONS, text);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return delegate.call(new EmbeddingRequest(List.of(text), QueryEmbeddingCache.QUERY_OPTIONS))
+                .getResult()
+                .getOutput();
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,43 @@
+package be.repository;
+
+import be.domain.*;
+import jakarta.persistence.*;
+import java.util.*;
+import org.springframework.data.jpa.repository.*;
+
+public interface FileFacetCountRepository extends JpaRepository<FileFacetCount, String> {
+
+    /**
+     * 읽고 쓰지 않고 한 번의 upsert 로 더해 동시 저장에서도 잃는 값이 없다. 행이 없으면 delta 로 만든다.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into file_facet_count (facet_key, facet, facet_value, file_count)
+            values (:facetKey, :facet, :facetValue, :delta)
+            on duplicate key update file_count = file_count + :delta
+            """)
+    int increment(String facetKey, String facet, String facetValue, long delta);
+
+    /**
+     * 행이 없을 때만 0 으로 만든다. 다른 트랜잭션이 같은 행을 만들고 아직 커밋하지 않았으면 끝날 때까지 기다린다.
+     *
+     * @return 만들었으면 1
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert ignore into file_facet_count (facet_key, facet, facet_value, file_count)
+            values (:facetKey, :facet, :facetValue, 0)
+            """)
+    int insertIfAbsent(String facetKey, String facet, String facetValue);
+
+    /**
+     * 채우는 동안 동시 저장의 증감이 덮어써지지 않도록 모든 행을 잠근다.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from FileFacetCount c")
+    List<FileFacetCount> findAllForUpdate();
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update file_facet_count set file_count = :fileCount where facet_key = :facetKey")
+    int overwrite(String facetKey, long fileCount);
+}
@@ -1,17 +1,22 @@
 package be.repository;
 
 import be.domain.*;
+import java.time.*;
 import java.util.*;
+import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.*;
 
 public interface FileRepository extends JpaRepository<File, Long> {
 
-    List<File> findAllBy();
+    List<File> findAllByDeletedAtIsNull();
+
+    Optional<File> findByIdAndDeletedAtIsNull(Long id);
 
     @Query("""
             select f from File f
             left join fetch f.tags
                 where :category member of f.categories
+                and f.deletedAt is null
             """)
     List<File> findByCategory(Category category);
 
@@ -19,6 +24,7 @@ public interface FileRepository extends JpaRepository<File, Long> {
             select f from File f
             left join fetch f.tags
                 where f.fileType = :fileType
+                and f.deletedAt is null
             """)
     List<File> findByFileType(FileType fileType);
 
@@ -27,6 +33,160 @@ public interface FileRepository extends JpaRepository<File, Long> {
             left join fetch f.tags
                 where :category member of f.categories
                 and f.fileType = :fileType
+                and f.deletedAt is null
             """)
     List<File> findByCategoryAndFileType(Category category, FileType fileType);
+
+    @Query("""
+            select f.id from File f
+                where f.id in :ids
+                and f.deletedAt is null
+            """)
+    Set<Long> findLiveIds(Collection<Long> ids);
+
+    /**
+     * 메모리 색인으로 고른 id 의 파일을 한 번에 읽는다. 호출 측이 id 개수를 나눠서 넘긴다.
+     */
+    @Query("""
+            select f from File f
+            left join fetch f.tags
+                where f.id in :ids
+                and f.deletedAt is null
+            order by f.id
+            """)
+    List<File> findAllWithTagsByIdIn(Collection<Long> ids);
+
+    /**
+     * 삭제 표시된 파일. 오래된 것부터 reaper 가 정리하며, 삭제에 실패해 미뤄진 파일은 다음 시도 시각까지 건너뛴다.
+     */
+    @Query("""
+            select f from File f
+                where f.deletedAt is not null
+                and (f.nextReapAt is null or f.nextReapAt <= :now)
+            order by f.id
+            """)
+    List<File> findTombstoned(LocalDateTime now, Pageable pageable);
+
+    /**
+     * 대체 메타데이터로 저장돼 다시 분석할 파일. 재분석 횟수가 maxAttempts 에 이르면 제외한다.
+     */
+    @Query("""
+            select f.id from File f
+                where f.needsEnrichment = true
+                and f.enrichmentAttempts < :maxAttempts
+                and f.deletedAt is null
+            order by f.id
+            """)
+    List<Long> findIdsNeedingEnrichment(int maxAttempts, Pageable pageable);
+
+    /**
+     * id 순서의 keyset 페이지. offset 없이 afterId 다음부터 읽는다.
+     */
+    @Query("""
+            select f.id from File f
+                where f.id > :afterId
+                and f.deletedAt is null
+            order by f.id
+            """)
+    List<Long> findIdsAfter(Long afterId, Pageable pageable);
+
+    @Query("""
+            select f.fileMediaType as mediaType,
+                count(f) as fileCount,
+                sum(f.fileSize) as originalBytes,
+                sum(coalesce(f.storedSize, f.fileSize)) as storedBytes
+            from File f
+                where f.fileSize is not null
+            group by f.fileMediaType
+            """)
+    List<StorageUsage> sumStorageUsageByMediaType();
+
+    /**
+     * 집계 테이블을 처음 채울 때 한 번만 쓴다. 조회 API 는 {@link FileFacetCount} 만 읽는다.
+     */
+    @Query("""
+            select c as category, count(distinct f) as fileCount
+            from File f join f.categories c
+                where f.deletedAt is null
+            group by c
+            """)
+    List<CategoryTotal> countByCategory();
+
+    @Query("""
+            select f.fileType as fileType, count(f) as fileCount
+            from File f
+                where f.deletedAt is null and f.fileType is not null
+            group by f.fileType
+            """)
+    List<FileTypeTotal> countByFileType();
+
+    /**
+     * 시작할 때 {@link be.service.FileBitmapIndex} 를 만드는 데만 쓴다.
+     */
+    @Query("""
+            select f.id as fileId, f.fileType as fileType
+            from File f
+                where f.deletedAt is null
+            """)
+    List<FileTypeMember> findFileTypeMembers();
+
+    @Query("""
+            select f.id as fileId, c as category
+            from File f join f.categories c
+                where f.deletedAt is null
+            """)
+    List<CategoryMember> findCategoryMembers();
+
+    @Query("""
+            select f.id as fileId, t.description as tag
+            from File f join f.tags t
+                where f.deletedAt is null
+            """)
+    List<TagMember> findTagMembers();
+
+    interface FileTypeMember {
+
+        long getFileId();
+
+        FileType getFileType();
+    }
+
+    interface CategoryMember {
+
+        long getFileId();
+
+        Category getCategory();
+    }
+
+    interface TagMember {
+
+        long getFileId();
+
+        String getTag();
+    }
+
+    interface CategoryTotal {
+
+        Category getCategory();
+
+        long getFileCount();
+    }
+
+    interface FileTypeTotal {
+
+        FileType getFileType();
+
+        long getFileCount();
+    }
+
+    interface StorageUsage {
+
+        String getMediaType();
+
+        long getFileCount();
+
+        long getOriginalBytes();
+
+        long getStoredBytes();
+    }
 }
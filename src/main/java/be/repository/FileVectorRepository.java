@@ -1,11 +1,15 @@
 package be.repository;
 
 import be.domain.*;
+import be.util.metric.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Repository;
 
 import java.nio.charset.StandardCharsets;
@@ -18,13 +22,38 @@ import java.util.stream.Stream;
 @Repository
 @RequiredArgsConstructor
 public class FileVectorRepository {
-    private final VectorStore vectorStore;
+    private final VectorStoreRouter vectorStoreRouter;
     private final FileRepository fileRepository;
     private final TagRepository tagRepository;
+    private final StageMetrics stageMetrics;
+    private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryEmbeddingCache;
 
     public void save(File file) {
         Document document = toDocument(file);
-        vectorStore.add(List.of(document));
+        stageMetrics.record(Stage.VECTOR_ADD, file.getFileType(), () -> {
+            vectorStoreRouter.writeTargets().forEach(store -> store.add(List.of(document)));
+        });
+    }
+
+    /**
+     * 엔티티의 지연 로딩 컬렉션을 읽으므로 세션 안에서 호출해야 한다.
+     */
+    public List<Document> toDocuments(List<File> files) {
+        return files.stream()
+                .filter(file -> !file.isDeleted())
+                .map(this::toDocument)
+                .toList();
+    }
+
+    /**
+     * 같은 id 의 문서는 덮어쓴다. 임베딩은 벡터 저장소가 배치로 계산한다.
+     * 재색인 중이면 shadow 컬렉션에도 기록한다.
+     */
+    public void addAll(List<Document> documents) {
+        stageMetrics.record(Stage.VECTOR_ADD, null, () -> {
+            vectorStoreRouter.writeTargets().forEach(store -> store.add(documents));
+        });
     }
 
     public List<File> searchSimilarFiles(String query, int topK, double similarityThreshold, Category category, FileType fileType) {
@@ -34,13 +63,71 @@ public class FileVectorRepository {
                 .similarityThreshold(similarityThreshold)
                 .build();
         
-        List<Document> documents = vectorStore.similaritySearch(searchRequest);
-        return documents.stream()
+        List<Document> documents = stageMetrics.record(
+                Stage.VECTOR_SEARCH, fileType, () -> vectorStoreRouter.active().similaritySearch(searchRequest)
+        );
+        List<File> files = documents.stream()
                 .map(this::toFile)
                 .filter(Objects::nonNull)
                 .filter(file -> matchesCategory(file, category))
                 .filter(file -> matchesFileType(file, fileType))
                 .collect(Collectors.toList());
+
+        return excludeDeleted(files);
+    }
+
+    /**
+     * 파일 id 에 해당하는 문서를 현재 기록 대상인 모든 컬렉션에서 한 번의 요청으로 지운다.
+     */
+    public void deleteAll(List<Long> fileIds) {
+        List<String> documentIds = fileIds.stream()
+                .map(id -> generateDeterministicUuid(File.class.getName(), id))
+                .toList();
+
+        stageMetrics.record(Stage.VECTOR_DELETE, null, () -> {
+            vectorStoreRouter.writeTargets().forEach(store -> store.delete(documentIds));
+        });
+    }
+
+    /**
+     * 삭제 표시된 파일의 문서는 reaper 가 지우기 전까지 검색될 수 있으므로 걸러낸다.
+     */
+    private List<File> excludeDeleted(List<File> files) {
+        List<Long> ids = files.stream()
+                .map(File::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (ids.isEmpty()) {
+            return files;
+        }
+
+        Set<Long> live = stageMetrics.record(Stage.DB_READ, null, () -> fileRepository.findLiveIds(ids));
+        return files.stream()
+                .filter(file -> live.contains(file.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 아직 캐시에 없는 검색어를 한 번의 임베딩 요청으로 계산해 둔다.
+     * 이후 {@link #searchSimilarFiles} 는 검색어를 다시 임베딩하지 않는다.
+     */
+    public void primeQueryEmbeddings(List<String> queries) {
+        List<String> missing = queries.stream()
+                .distinct()
+                .filter(query -> !queryEmbeddingCache.contains(QueryEmbeddingCache.QUERY_OPTIONS, query))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        EmbeddingResponse response = stageMetrics.record(
+                Stage.EMBED_QUERY, null,
+                () -> embeddingModel.call(new EmbeddingRequest(missing, QueryEmbeddingCache.QUERY_OPTIONS))
+        );
+        List<float[]> embeddings = response.getResults().stream()
+                .map(Embedding::getOutput)
+                .toList();
+        queryEmbeddingCache.putAll(QueryEmbeddingCache.QUERY_OPTIONS, missing, embeddings);
     }
 
     private boolean matchesCategory(File file, Category category) {
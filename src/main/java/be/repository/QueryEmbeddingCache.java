@@ -0,0 +1,59 @@
+package be.repository;
+
+import com.github.benmanes.caffeine.cache.*;
+import java.time.*;
+import java.util.*;
+import org.springframework.ai.embedding.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 검색어 임베딩을 짧은 시간 보관한다.
+ * <p>
+ * 여러 검색어를 한 번의 임베딩 요청으로 계산해 넣어두면, 이어지는 벡터 검색이 각 검색어를
+ * 임베딩할 때 {@link CachingEmbeddingModel} 이 모델 호출 대신 여기서 돌려준다.
+ * 같은 텍스트라도 모델이나 차원 수가 다른 옵션으로 계산한 임베딩은 따로 보관한다.
+ */
+@Component
+public class QueryEmbeddingCache {
+
+    /**
+     * 벡터 저장소가 검색어를 임베딩할 때와 같은 옵션 (모델 기본값).
+     */
+    public static final EmbeddingOptions QUERY_OPTIONS = EmbeddingOptionsBuilder.builder().build();
+
+    private final Cache<Key, float[]> cache;
+
+    public QueryEmbeddingCache(
+            @Value("${search.query-embedding-cache.ttl}")
+            Duration ttl,
+            @Value("${search.query-embedding-cache.max-size}")
+            long maxSize
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public boolean contains(EmbeddingOptions options, String query) {
+        return cache.getIfPresent(Key.of(options, query)) != null;
+    }
+
+    public Optional<float[]> get(EmbeddingOptions options, String query) {
+        return Optional.ofNullable(cache.getIfPresent(Key.of(options, query)));
+    }
+
+    public void putAll(EmbeddingOptions options, List<String> texts, List<float[]> embeddings) {
+        for (int i = 0; i < texts.size(); i++) {
+            cache.put(Key.of(options, texts.get(i)), embeddings.get(i));
+        }
+    }
+
+    private record Key(String optionsType, String model, Integer dimensions, String text) {
+
+        static Key of(EmbeddingOptions options, String text) {
+            return new Key(options.getClass().getName(), options.getModel(), options.getDimensions(), text);
+        }
+    }
+}
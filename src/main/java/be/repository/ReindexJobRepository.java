@@ -0,0 +1,13 @@
+package be.repository;
+
+import be.domain.*;
+import be.domain.ReindexJob.*;
+import java.util.*;
+import org.springframework.data.jpa.repository.*;
+
+public interface ReindexJobRepository extends JpaRepository<ReindexJob, Long> {
+
+    Optional<ReindexJob> findFirstByStatusOrderByIdDesc(Status status);
+
+    Optional<ReindexJob> findFirstByOrderByIdDesc();
+}
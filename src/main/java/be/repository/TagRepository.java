@@ -2,9 +2,29 @@ package be.repository;
 
 import be.domain.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
     Optional<Tag> findByDescription(String description);
+
+    /**
+     * 태그 자동완성 색인을 다시 만들 때 쓴다. 삭제되지 않은 파일에 붙은 태그만 나온다.
+     */
+    @Query("""
+            select t.description as description, count(distinct f) as fileCount
+            from File f join f.tags t
+                where f.deletedAt is null and t.description is not null
+            group by t.description
+            """)
+    List<TagUsage> countLiveFilesByDescription();
+
+    interface TagUsage {
+
+        String getDescription();
+
+        long getFileCount();
+    }
 }
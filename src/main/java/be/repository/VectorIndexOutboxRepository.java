@@ -0,0 +1,35 @@
+package be.repository;
+
+import be.domain.*;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.*;
+import java.util.*;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.repository.*;
+
+public interface VectorIndexOutboxRepository extends JpaRepository<VectorIndexOutbox, Long> {
+
+    /**
+     * 다른 색인기가 잠근 행은 건너뛴다 (lock timeout -2 = SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select o from VectorIndexOutbox o
+                where o.nextAttemptAt <= :now
+                and o.deadLetteredAt is null
+            order by o.id
+            """)
+    List<VectorIndexOutbox> findDueForUpdate(LocalDateTime now, Pageable pageable);
+
+    Optional<VectorIndexOutbox> findFirstByDeadLetteredAtIsNullOrderByIdAsc();
+
+    long countByDeadLetteredAtIsNull();
+
+    long countByDeadLetteredAtIsNotNull();
+
+    @Modifying
+    @Query("delete from VectorIndexOutbox o where o.fileId in :fileIds")
+    int deleteByFileIdIn(Collection<Long> fileIds);
+}
@@ -0,0 +1,165 @@
+package be.repository;
+
+import be.domain.*;
+import be.domain.ReindexJob.*;
+import io.weaviate.client.WeaviateClient;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import lombok.extern.slf4j.*;
+import org.springframework.ai.embedding.*;
+import org.springframework.ai.vectorstore.*;
+import org.springframework.ai.vectorstore.weaviate.*;
+import org.springframework.beans.factory.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 검색이 읽는 벡터 컬렉션과 색인이 쓰는 컬렉션을 고른다.
+ * <p>
+ * 재색인 중에는 새로 색인되는 파일을 현재 컬렉션과 shadow 컬렉션 양쪽에 기록해, 전환 직후에도 빠진 파일이 없게 한다.
+ * 전환은 {@link AtomicReference} 교체 한 번으로 이뤄지며, 마지막으로 전환된 컬렉션은 재시작 후에도 유지된다.
+ * <p>
+ * 복원은 처음 사용할 때 한 번 한다. 빈 생성 중에는 DB 에 접근하지 않으므로, DB 없이 컨텍스트만 띄우는 CDS 학습 실행에서도 초기화된다.
+ */
+@Slf4j
+@Component
+public class VectorStoreRouter {
+
+    private final VectorStore defaultStore;
+    private final String defaultCollection;
+    private final ObjectProvider<WeaviateClient> weaviateClient;
+    private final EmbeddingModel embeddingModel;
+    private final ReindexJobRepository reindexJobRepository;
+
+    private final AtomicReference<Route> route = new AtomicReference<>();
+
+    public VectorStoreRouter(
+            VectorStore defaultStore,
+            @Value("${spring.ai.vectorstore.weaviate.object-class:SpringAiWeaviate}")
+            String defaultCollection,
+            ObjectProvider<WeaviateClient> weaviateClient,
+            EmbeddingModel embeddingModel,
+            ReindexJobRepository reindexJobRepository
+    ) {
+        this.defaultStore = defaultStore;
+        this.defaultCollection = defaultCollection;
+        this.weaviateClient = weaviateClient;
+        this.embeddingModel = embeddingModel;
+        this.reindexJobRepository = reindexJobRepository;
+    }
+
+    private Route route() {
+        Route current = route.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (route.get() == null) {
+                restore();
+            }
+            return route.get();
+        }
+    }
+
+    private void restore() {
+        Target active = reindexJobRepository.findFirstByStatusOrderByIdDesc(Status.SWITCHED)
+                .map(job -> open(job.getTargetCollection()))
+                .orElseGet(() -> new Target(defaultCollection, defaultStore));
+
+        // 진행 중이거나, 완료됐지만 아직 전환하지 않은 shadow 컬렉션은 계속 함께 기록한다
+        Target shadow = reindexJobRepository.findFirstByOrderByIdDesc()
+                .filter(ReindexJob::isShadow)
+                .filter(job -> job.getStatus() == Status.RUNNING || job.getStatus() == Status.COMPLETED)
+                .map(job -> open(job.getTargetCollection()))
+                .orElse(null);
+        route.set(new Route(active, shadow));
+
+        log.info("Searching vector collection {}", active.collection());
+    }
+
+    public VectorStore active() {
+        return route().active().store();
+    }
+
+    public String activeCollection() {
+        return route().active().collection();
+    }
+
+    /**
+     * 색인 기록 대상. 재색인 중이면 shadow 컬렉션도 포함한다.
+     */
+    public List<VectorStore> writeTargets() {
+        Route current = route();
+        if (current.shadow() == null) {
+            return List.of(current.active().store());
+        }
+        return List.of(current.active().store(), current.shadow().store());
+    }
+
+    public boolean supportsShadow() {
+        return weaviateClient.getIfAvailable() != null;
+    }
+
+    /**
+     * 이름에 해당하는 컬렉션의 VectorStore. 현재 컬렉션이면 그대로 돌려준다.
+     */
+    public VectorStore store(String collection) {
+        Route current = route();
+        if (current.active().collection().equals(collection)) {
+            return current.active().store();
+        }
+        if (current.shadow() != null && current.shadow().collection().equals(collection)) {
+            return current.shadow().store();
+        }
+        return open(collection).store();
+    }
+
+    public void startShadow(String collection) {
+        Target shadow = open(collection);
+        route();
+        route.updateAndGet(current -> new Route(current.active(), shadow));
+    }
+
+    public void stopShadow() {
+        route();
+        route.updateAndGet(current -> new Route(current.active(), null));
+    }
+
+    /**
+     * 검색을 shadow 컬렉션으로 전환한다. 이전 컬렉션은 지우지 않으므로 필요하면 되돌릴 수 있다.
+     */
+    public void switchTo(String collection) {
+        Target target = open(collection);
+        route();
+        Route previous = route.getAndSet(new Route(target, null));
+        log.info("Switched vector collection {} -> {}", previous.active().collection(), collection);
+    }
+
+    private Target open(String collection) {
+        if (collection.equals(defaultCollection)) {
+            return new Target(defaultCollection, defaultStore);
+        }
+
+        Route current = route.get();
+        if (current != null && current.shadow() != null && current.shadow().collection().equals(collection)) {
+            return current.shadow();
+        }
+
+        WeaviateClient client = weaviateClient.getIfAvailable();
+        if (client == null) {
+            throw new IllegalStateException("Separate vector collections require the Weaviate vector store");
+        }
+
+        return new Target(collection, WeaviateVectorStore.builder(client, embeddingModel)
+                .objectClass(collection)
+                .build());
+    }
+
+    private record Target(String collection, VectorStore store) {
+
+    }
+
+    private record Route(Target active, Target shadow) {
+
+    }
+}
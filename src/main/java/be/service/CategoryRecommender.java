@@ -1,12 +1,12 @@
 package be.service;
 
 import be.domain.*;
+import be.util.metric.*;
 import java.util.*;
 import java.util.concurrent.atomic.*;
 import lombok.*;
 import lombok.extern.slf4j.*;
 import org.springframework.ai.chat.client.*;
-import org.springframework.core.*;
 import org.springframework.stereotype.*;
 
 @Slf4j
@@ -16,6 +16,7 @@ public class CategoryRecommender {
 
     private final ChatClient chatClient;
     private final CategoryRecoder categoryRecoder;
+    private final SystemPromptCache systemPromptCache;
 
     private static final String systemPrompt;
     
@@ -75,14 +76,14 @@ public class CategoryRecommender {
                 visitCount, latestAdded
         );
 
-        List<Category> recommendations = chatClient.prompt()
-                .system(s -> s.text(systemPrompt)
-                )
+        ChatClient.ChatClientRequestSpec request = chatClient.prompt()
+                .advisors(StageMetricsAdvisor.stage(Stage.RECOMMEND_CATEGORY, null))
                 .user(u -> u.text(userInputPrompt)
-                )
-                .call()
-                .entity(new ParameterizedTypeReference<>() {
-                });
+                );
+        systemPromptCache.applyTo(request, systemPrompt);
+
+        List<Category> recommendations = request.call()
+                .entity(StructuredOutputs.CATEGORIES);
         
         // 캐시 업데이트
         cachedRecommendations.set(recommendations);
@@ -0,0 +1,79 @@
+package be.service;
+
+import be.domain.exception.*;
+import be.util.*;
+import java.io.InterruptedIOException;
+import java.time.*;
+import java.util.*;
+import org.springframework.ai.chat.model.*;
+import org.springframework.ai.chat.prompt.*;
+import reactor.core.publisher.*;
+
+/**
+ * 모든 ChatClient 호출이 지나는 ChatModel 을 {@link CircuitBreaker} 로 감싼다.
+ * <p>
+ * 실패했거나 slow-call-threshold 보다 오래 걸린 호출을 실패로 센다. 회로가 열려 있으면 Gemini 를 호출하지 않고
+ * {@link LlmUnavailableException} 을 던지므로, 업로드는 기다리지 않고 바로 대체 메타데이터로 저장된다.
+ * deadline 을 넘겨 {@link LlmCallPolicy} 가 interrupt 한 호출은 Gemini 의 상태와 무관하므로 세지 않는다.
+ */
+public class CircuitBreakingChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration slowCallThreshold;
+
+    public CircuitBreakingChatModel(ChatModel delegate, CircuitBreaker circuitBreaker, Duration slowCallThreshold) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.slowCallThreshold = slowCallThreshold;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Optional<CircuitBreaker.Permit> acquired = circuitBreaker.tryAcquire();
+        if (acquired.isEmpty()) {
+            throw new LlmUnavailableException(circuitBreaker.remainingOpen());
+        }
+        CircuitBreaker.Permit permit = acquired.get();
+
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.call(prompt);
+            if (System.nanoTime() - start > slowCallThreshold.toNanos()) {
+                circuitBreaker.onFailure(permit);
+            } else {
+                circuitBreaker.onSuccess(permit);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            if (interrupted(e)) {
+                circuitBreaker.release(permit);
+            } else {
+                circuitBreaker.onFailure(permit);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean interrupted(Throwable error) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
@@ -1,40 +1,54 @@
 package be.service;
 
+import be.domain.*;
+import be.domain.exception.*;
+import java.io.*;
 import org.springframework.stereotype.*;
+import org.springframework.web.multipart.*;
 
+/**
+ * 업로드의 Content-Type 을 {@link MediaTypeRegistry} 로 확인하고, 내용 앞부분의 매직 바이트가 그 형식과 맞는지 검사한다.
+ * 저장이나 분석을 시작하기 전에 호출해 형식이 잘못 표시된 파일을 거절한다.
+ */
 @Component
 public class ContentTypeValidator {
 
-    public boolean acceptableType(String contentType) {
-
-        if (contentType == null)    {
-            return false;
-        }
-
-        if (contentType.startsWith("text/")) {
-            return true;
-        }
-
-        if (contentType.startsWith("audio/")) {
-            return true;
-        }
-
-        if (contentType.equals("application/pdf")) {
-            return true;
+    public MediaTypeRegistry.Entry requireAcceptable(String contentType) {
+        MediaTypeRegistry.Entry entry = MediaTypeRegistry.lookup(contentType);
+        if (!entry.acceptable()) {
+            throw new UnacceptableContentTypeException(String.format(
+                    "허용되지 않는 파일 형식입니다: %s",
+                    contentType
+            ));
         }
+        return entry;
+    }
 
-        if (contentType.startsWith("image/png")) {
-            return true;
+    public void requireMatchingContent(MediaTypeRegistry.Entry entry, MultipartFile multipartFile) throws IOException {
+        try (InputStream in = multipartFile.getInputStream()) {
+            requireMatching(entry, in.readNBytes(MediaTypeRegistry.SNIFF_LENGTH));
         }
+    }
 
-        if (contentType.startsWith("image/jpeg")) {
-            return true;
-        }
+    /**
+     * @return 검사한 앞부분을 다시 읽을 수 있는 스트림. 원래 스트림 대신 이것을 읽어야 한다
+     */
+    public InputStream requireMatchingContent(MediaTypeRegistry.Entry entry, InputStream content) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(content, MediaTypeRegistry.SNIFF_LENGTH);
+        buffered.mark(MediaTypeRegistry.SNIFF_LENGTH);
+        byte[] head = buffered.readNBytes(MediaTypeRegistry.SNIFF_LENGTH);
+        buffered.reset();
+
+        requireMatching(entry, head);
+        return buffered;
+    }
 
-        if (contentType.equals("audio/mpeg")) {
-            return true;
+    private static void requireMatching(MediaTypeRegistry.Entry entry, byte[] head) {
+        if (!entry.matchesContent(head)) {
+            throw new UnacceptableContentTypeException(String.format(
+                    "파일 내용이 주어진 형식과 일치하지 않습니다: %s",
+                    entry.mediaType()
+            ));
         }
-
-        return false;
     }
 }
@@ -0,0 +1,99 @@
+package be.service;
+
+import be.domain.*;
+import be.service.audio.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+import lombok.extern.slf4j.*;
+import org.springframework.ai.chat.client.ChatClient.*;
+import org.springframework.ai.content.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.core.io.*;
+import org.springframework.stereotype.*;
+import org.springframework.util.*;
+import org.springframework.util.unit.*;
+
+/**
+ * 분석 요청에 첨부할 파일 내용. 첨부 방식은 {@link MediaTypeRegistry} 의 {@link IngestStrategy} 를 따른다.
+ * <p>
+ * 오디오는 {@link AudioSegmenter} 가 자른 구간만 첨부하고, 전체 길이 중 어느 구간인지 사용자 프롬프트에 덧붙인다.
+ * 자를 수 없는 형식은 audio.excerpt.max-inline-size 이하일 때만 통째로 첨부하고, 그보다 크면 파일 이름만으로 분석한다.
+ */
+@Slf4j
+@Component
+public class EnrichmentInput {
+
+    private final FileIO fileIO;
+    private final AudioSegmenter audioSegmenter;
+    private final long maxInlineAudioSize;
+
+    public EnrichmentInput(
+            FileIO fileIO,
+            AudioSegmenter audioSegmenter,
+            @Value("${audio.excerpt.max-inline-size}")
+            DataSize maxInlineAudioSize
+    ) {
+        this.fileIO = fileIO;
+        this.audioSegmenter = audioSegmenter;
+        this.maxInlineAudioSize = maxInlineAudioSize.toBytes();
+    }
+
+    public Prepared prepare(File file) {
+        IngestStrategy strategy = MediaTypeRegistry.lookup(file.getFileMediaType().toString()).ingestStrategy();
+        if (strategy == IngestStrategy.INLINE) {
+            return new Prepared(List.of(whole(file)), "");
+        }
+
+        if (strategy == IngestStrategy.AUDIO_EXCERPT) {
+            Optional<AudioExcerpt> excerpt = audioSegmenter.excerpt(file);
+            if (excerpt.isPresent()) {
+                return excerpted(excerpt.get());
+            }
+        }
+
+        if (file.getFileSize() != null && file.getFileSize() <= maxInlineAudioSize) {
+            return new Prepared(List.of(whole(file)), "");
+        }
+        log.info("Audio {} is too large to attach, enriching by name only", file.getSavedFileName());
+        return new Prepared(List.of(), String.format(
+                "\n오디오 파일 '%s' 은(는) 길어서 내용을 첨부하지 못했습니다. 파일 이름으로 판단해 주세요.",
+                file.getOriginalFileName()
+        ));
+    }
+
+    private static Prepared excerpted(AudioExcerpt excerpt) {
+        List<Media> media = excerpt.segments().stream()
+                .map(segment -> new Media(segment.mimeType(), new ByteArrayResource(segment.data())))
+                .toList();
+        String ranges = excerpt.segments().stream()
+                .map(segment -> format(segment.start()) + "-" + format(segment.end()))
+                .collect(Collectors.joining(", "));
+        return new Prepared(media, String.format(
+                "\n첨부된 오디오는 전체 %s 길이의 녹음 중 일부 구간(%s)입니다.",
+                format(excerpt.duration()), ranges
+        ));
+    }
+
+    private Media whole(File file) {
+        return new Media(
+                MimeType.valueOf(file.getFileMediaType().toString()),
+                new ByteArrayResource(fileIO.getFileData(file.getSavedFileName(), file.getStoredEncoding()))
+        );
+    }
+
+    private static String format(Duration duration) {
+        return String.format("%d:%02d", duration.toMinutes(), duration.toSecondsPart());
+    }
+
+    /**
+     * @param note 사용자 프롬프트 뒤에 덧붙일 설명. 없으면 빈 문자열
+     */
+    public record Prepared(List<Media> media, String note) {
+
+        public void applyTo(PromptUserSpec user, String userInputPrompt) {
+            user.text(userInputPrompt + note)
+                    .media(media.toArray(Media[]::new));
+        }
+    }
+}
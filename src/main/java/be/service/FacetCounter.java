@@ -0,0 +1,135 @@
+package be.service;
+
+import be.controller.dto.*;
+import be.domain.*;
+import be.repository.*;
+import java.util.*;
+import lombok.*;
+import lombok.extern.slf4j.*;
+import org.springframework.boot.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.annotation.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * 카테고리별, 파일 타입별 파일 수를 {@link FileFacetCount} 에 유지한다.
+ * <p>
+ * 파일을 저장, 삭제, 재분류하는 트랜잭션 안에서 바뀐 facet 만 upsert 로 증감하므로 조회는 파일 수와 무관하게
+ * facet 개수만큼의 행만 읽는다. 행이 아직 없어도 (처음 배포 직후나 새 enum 값) 증감을 잃지 않는다.
+ * 여러 트랜잭션이 같은 행을 다른 순서로 잠그지 않도록 항상 키 순서로 갱신한다.
+ * <p>
+ * 기존 파일로 채우는 일은 표시 행 (BACKFILL) 이 없을 때 한 번만 한다. 표시 행을 만든 인스턴스만 채우며, 다른 인스턴스는
+ * 그 트랜잭션이 끝날 때까지 기다렸다가 건너뛴다. 채우는 동안에는 모든 행을 잠그므로 동시 저장의 증감은 채운 값 위에 더해진다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FacetCounter implements ApplicationRunner {
+
+    private static final String BACKFILL_MARKER = "DONE";
+
+    private final FileFacetCountRepository facetCountRepository;
+    private final FileRepository fileRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public FileFacets getFacets() {
+        Map<Category, Long> categories = new EnumMap<>(Category.class);
+        Map<FileType, Long> fileTypes = new EnumMap<>(FileType.class);
+        for (Category category : Category.values()) {
+            categories.put(category, 0L);
+        }
+        for (FileType fileType : FileType.values()) {
+            fileTypes.put(fileType, 0L);
+        }
+
+        for (FileFacetCount count : facetCountRepository.findAll()) {
+            switch (count.getFacet()) {
+                case CATEGORY -> Optional.ofNullable(Category.resolveOrNull(count.getFacetValue()))
+                        .ifPresent(category -> categories.put(category, count.getFileCount()));
+                case FILE_TYPE -> Optional.ofNullable(FileType.resolveOrNull(count.getFacetValue()))
+                        .ifPresent(fileType -> fileTypes.put(fileType, count.getFileCount()));
+                case BACKFILL -> {
+                }
+            }
+        }
+        return new FileFacets(categories, fileTypes);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSaved(FileType fileType, Collection<Category> categories) {
+        Map<String, Long> deltas = new TreeMap<>();
+        add(deltas, fileType, categories, 1);
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(FileType fileType, Collection<Category> categories) {
+        Map<String, Long> deltas = new TreeMap<>();
+        add(deltas, fileType, categories, -1);
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRecategorized(Collection<Category> before, Collection<Category> after) {
+        Map<String, Long> deltas = new TreeMap<>();
+        add(deltas, null, before, -1);
+        add(deltas, null, after, 1);
+        apply(deltas);
+    }
+
+    private static void add(Map<String, Long> deltas, FileType fileType, Collection<Category> categories, long delta) {
+        if (fileType != null) {
+            deltas.merge(FileFacetCount.key(FileFacetCount.Facet.FILE_TYPE, fileType.name()), delta, Long::sum);
+        }
+        // 같은 카테고리가 여러 번 들어 있어도 목록 조회처럼 한 번만 센다
+        for (Category category : new HashSet<>(categories)) {
+            deltas.merge(FileFacetCount.key(FileFacetCount.Facet.CATEGORY, category.name()), delta, Long::sum);
+        }
+    }
+
+    private void apply(Map<String, Long> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (delta != 0) {
+                String[] facet = key.split(":", 2);
+                facetCountRepository.increment(key, facet[0], facet[1], delta);
+            }
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        transactionTemplate.executeWithoutResult(status -> {
+            String marker = FileFacetCount.key(FileFacetCount.Facet.BACKFILL, BACKFILL_MARKER);
+            if (facetCountRepository.insertIfAbsent(
+                    marker, FileFacetCount.Facet.BACKFILL.name(), BACKFILL_MARKER) == 0) {
+                return;
+            }
+
+            Map<String, Long> totals = new TreeMap<>();
+            for (Category category : Category.values()) {
+                totals.put(FileFacetCount.key(FileFacetCount.Facet.CATEGORY, category.name()), 0L);
+            }
+            for (FileType fileType : FileType.values()) {
+                totals.put(FileFacetCount.key(FileFacetCount.Facet.FILE_TYPE, fileType.name()), 0L);
+            }
+            // 행을 먼저 만들고 잠근 뒤에 세야, 잠금을 기다린 저장은 집계에 들어가고 이후 저장은 채운 값 위에 더해진다
+            totals.forEach((key, zero) -> {
+                String[] facet = key.split(":", 2);
+                facetCountRepository.insertIfAbsent(key, facet[0], facet[1]);
+            });
+            facetCountRepository.findAllForUpdate();
+
+            fileRepository.countByCategory().forEach(total -> totals.put(
+                    FileFacetCount.key(FileFacetCount.Facet.CATEGORY, total.getCategory().name()),
+                    total.getFileCount()
+            ));
+            fileRepository.countByFileType().forEach(total -> totals.put(
+                    FileFacetCount.key(FileFacetCount.Facet.FILE_TYPE, total.getFileType().name()),
+                    total.getFileCount()
+            ));
+
+            totals.forEach(facetCountRepository::overwrite);
+            log.info("Backfilled facet counts from existing files: {}", totals);
+        });
+    }
+}
@@ -0,0 +1,284 @@
+package be.service;
+
+import be.domain.*;
+import be.repository.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import lombok.extern.slf4j.*;
+import org.roaringbitmap.*;
+import org.springframework.boot.*;
+import org.springframework.core.*;
+import org.springframework.core.annotation.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.event.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * 카테고리, 파일 타입, 태그마다 그 값을 가진 살아 있는 파일 id 의 압축 bitmap 을 메모리에 둔다.
+ * <p>
+ * 목록 필터는 bitmap 의 교집합 (ALL) 또는 합집합 (ANY) 으로 id 를 고른 뒤 id 로 한 번에 읽는다.
+ * file_category 를 훑는 member of 서브쿼리나 태그 join 없이 조건 수에 비례하는 비용만 든다.
+ * <p>
+ * 시작할 때와 rebuild-interval 마다 한 읽기 전용 트랜잭션에서 DB 를 읽어 새로 만들고, 그 사이에는 커밋된
+ * {@link FileMembershipChangedEvent} 로 바뀐 소속만 고친다. 만드는 동안 (처음 만들기 전 포함) 들어온 변경은 모아 두었다가
+ * 새 bitmap 에 다시 적용한 뒤 바꿔 끼운다. bitmap 의 추가, 삭제는 여러 번 적용해도 결과가 같아 DB 에서 읽은 내용과 겹쳐도 된다.
+ * <p>
+ * id 는 int 로 담는다. int 범위를 넘는 id 를 만나면 색인을 끄고, 카테고리 목록은 DB 조회로 돌아간다.
+ * 전체 bitmap 크기는 drawer.filter.bitmap.size 로 노출한다.
+ */
+@Slf4j
+@Component
+public class FileBitmapIndex implements ApplicationRunner {
+
+    private final FileRepository fileRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Bitmaps bitmaps = new Bitmaps();
+    private boolean ready;
+    /**
+     * 만드는 동안 들어온 변경. 만들고 있지 않으면 null 이다. 쓰기 lock 안에서만 다룬다.
+     */
+    private List<FileMembershipChangedEvent> pending = new ArrayList<>();
+
+    public FileBitmapIndex(
+            FileRepository fileRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.fileRepository = fileRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("drawer.filter.bitmap.size", this, FileBitmapIndex::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    @Scheduled(
+            initialDelayString = "${file-filter.rebuild-interval}",
+            fixedDelayString = "${file-filter.rebuild-interval}"
+    )
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Bitmaps rebuilt;
+        try {
+            rebuilt = readOnlyTransaction.execute(status -> load());
+        } catch (ArithmeticException e) {
+            lock.writeLock().lock();
+            try {
+                disable(e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                // 처음 만들기 전이면 다음 재구성까지 변경을 계속 모은다
+                if (ready) {
+                    pending = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("Failed to rebuild file bitmap index, keeping the current one", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (FileMembershipChangedEvent event : pending) {
+                rebuilt.apply(event);
+            }
+            rebuilt.optimize();
+            int replayed = pending.size();
+            bitmaps = rebuilt;
+            pending = null;
+            ready = true;
+            log.info("Built file bitmap index with {} tags, replayed {} changes", rebuilt.byTag.size(), replayed);
+        } catch (ArithmeticException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Bitmaps load() {
+        Bitmaps loaded = new Bitmaps();
+        for (FileRepository.FileTypeMember member : fileRepository.findFileTypeMembers()) {
+            add(loaded.byFileType, member.getFileType(), member.getFileId());
+        }
+        for (FileRepository.CategoryMember member : fileRepository.findCategoryMembers()) {
+            add(loaded.byCategory, member.getCategory(), member.getFileId());
+        }
+        for (FileRepository.TagMember member : fileRepository.findTagMembers()) {
+            add(loaded.byTag, member.getTag(), member.getFileId());
+        }
+        return loaded;
+    }
+
+    /**
+     * 목록 버전보다 먼저 고쳐야 새 버전의 목록 캐시에 이전 결과가 담기지 않는다. {@link ListingVersions} 참고.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(FileMembershipChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            if (ready) {
+                bitmaps.apply(event);
+            }
+        } catch (ArithmeticException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 카테고리, 태그 조건이 하나 이상 있어야 한다. 조건이 없으면 빈 목록이다.
+     * ALL 에서 아무 파일에도 없는 태그는 결과를 비우고, ANY 에서는 무시된다.
+     *
+     * @return id 오름차순. 색인이 준비되지 않았으면 empty
+     */
+    public Optional<List<Long>> matching(FileFilter filter) {
+        RoaringBitmap matched;
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+
+            List<RoaringBitmap> terms = new ArrayList<>();
+            for (Category category : filter.categories()) {
+                terms.add(bitmaps.byCategory.get(category));
+            }
+            for (String tag : filter.tags()) {
+                RoaringBitmap bitmap = bitmaps.byTag.get(tag);
+                if (bitmap != null) {
+                    terms.add(bitmap);
+                } else if (filter.match() == FileFilter.Match.ALL) {
+                    return Optional.of(List.of());
+                }
+            }
+
+            matched = filter.match() == FileFilter.Match.ALL
+                    ? FastAggregation.and(terms.iterator())
+                    : FastAggregation.or(terms.iterator());
+            if (filter.fileType() != null) {
+                matched = RoaringBitmap.and(matched, bitmaps.byFileType.get(filter.fileType()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Long> ids = new ArrayList<>(matched.getCardinality());
+        matched.forEach((int id) -> ids.add((long) id));
+        return Optional.of(ids);
+    }
+
+    /**
+     * 쓰기 lock 안에서 호출한다. 다음 재구성에서 다시 시도한다.
+     */
+    private void disable(ArithmeticException e) {
+        ready = false;
+        pending = null;
+        bitmaps = new Bitmaps();
+        log.error("File id exceeds the bitmap index range, disabling it", e);
+    }
+
+    private static <K> void add(Map<K, RoaringBitmap> bitmaps, K key, long fileId) {
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, ignored -> new RoaringBitmap()).add(Math.toIntExact(fileId));
+        }
+    }
+
+    /**
+     * 파일이 없어진 태그의 bitmap 은 지운다. 카테고리와 파일 타입은 빈 bitmap 을 남긴다.
+     */
+    private static <K> void remove(Map<K, RoaringBitmap> bitmaps, K key, long fileId) {
+        RoaringBitmap bitmap = key == null ? null : bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.remove(Math.toIntExact(fileId));
+        if (bitmap.isEmpty() && key instanceof String) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private double sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long size = 0;
+            for (RoaringBitmap bitmap : bitmaps.byCategory.values()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : bitmaps.byFileType.values()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : bitmaps.byTag.values()) {
+                size += bitmap.getLongSizeInBytes();
+            }
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Bitmaps {
+
+        private final Map<Category, RoaringBitmap> byCategory = new EnumMap<>(Category.class);
+        private final Map<FileType, RoaringBitmap> byFileType = new EnumMap<>(FileType.class);
+        private final Map<String, RoaringBitmap> byTag = new HashMap<>();
+
+        private Bitmaps() {
+            for (Category category : Category.values()) {
+                byCategory.put(category, new RoaringBitmap());
+            }
+            for (FileType fileType : FileType.values()) {
+                byFileType.put(fileType, new RoaringBitmap());
+            }
+        }
+
+        private void apply(FileMembershipChangedEvent event) {
+            long fileId = event.fileId();
+            FileMembershipChangedEvent.Membership before = event.before();
+            FileMembershipChangedEvent.Membership after = event.after();
+
+            remove(byFileType, before.fileType(), fileId);
+            before.categories().forEach(category -> remove(byCategory, category, fileId));
+            before.tags().forEach(tag -> remove(byTag, tag, fileId));
+
+            add(byFileType, after.fileType(), fileId);
+            after.categories().forEach(category -> add(byCategory, category, fileId));
+            after.tags().forEach(tag -> add(byTag, tag, fileId));
+        }
+
+        private void optimize() {
+            byFileType.values().forEach(RoaringBitmap::runOptimize);
+            byCategory.values().forEach(RoaringBitmap::runOptimize);
+            byTag.values().forEach(RoaringBitmap::runOptimize);
+        }
+    }
+}
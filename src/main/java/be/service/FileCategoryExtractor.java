@@ -2,6 +2,7 @@ package be.service;
 
 
 import be.domain.*;
+import be.util.metric.*;
 import java.util.*;
 import lombok.*;
 import org.springframework.ai.chat.client.*;
@@ -16,7 +17,9 @@ import org.springframework.util.*;
 public class FileCategoryExtractor {
 
     private final ChatClient chatClient;
-    private final FileIO fileIO;
+    private final EnrichmentInput enrichmentInput;
+    private final SystemPromptCache systemPromptCache;
+    private final ModelRouter modelRouter;
 
     private static final String systemPrompt, userInputPrompt;
 
@@ -49,16 +52,17 @@ public class FileCategoryExtractor {
     }
 
     public List<Category> extractCategory(File file) {
+        EnrichmentInput.Prepared input = enrichmentInput.prepare(file);
 
-        List<Category> extractedCategories = chatClient.prompt()
-                .system(s -> s.text(systemPrompt)
-                )
-                .user(u -> u.text(userInputPrompt)
-                        .media(new Media(getMimeType(file), getFileResource(file)))
-                )
-                .call()
-                .entity(new ParameterizedTypeReference<>() {
-                });
+        List<Category> extractedCategories = modelRouter.call(Stage.EXTRACT_CATEGORY, file, route -> {
+            ChatClient.ChatClientRequestSpec request = chatClient.prompt()
+                    .advisors(StageMetricsAdvisor.stage(Stage.EXTRACT_CATEGORY, file.getFileType()))
+                    .user(u -> input.applyTo(u, userInputPrompt));
+            systemPromptCache.applyTo(request, systemPrompt, route);
+
+            return request.call()
+                    .entity(StructuredOutputs.CATEGORIES);
+        });
 
         // structured output을 검증하여 유효한 카테고리만 필터링
         List<Category> validCategories = extractedCategories.stream()
@@ -74,12 +78,4 @@ public class FileCategoryExtractor {
         return validCategories;
     }
 
-    private MimeType getMimeType(File file) {
-        return MimeType.valueOf(file.getFileMediaType().toString());
-    }
-
-    private Resource getFileResource(File file) {
-        return new ByteArrayResource(fileIO.getFileData(file.getSavedFileName()));
-    }
-
 }
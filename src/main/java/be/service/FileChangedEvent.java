@@ -0,0 +1,17 @@
+package be.service;
+
+import be.domain.*;
+import java.util.*;
+
+/**
+ * 파일이 추가되거나 삭제됐음을 알린다. 트랜잭션이 커밋된 뒤에 목록 버전을 올리는 데 사용한다.
+ */
+public record FileChangedEvent(
+        List<Category> categories,
+        FileType fileType
+) {
+
+    public FileChangedEvent {
+        categories = categories == null ? List.of() : List.copyOf(categories);
+    }
+}
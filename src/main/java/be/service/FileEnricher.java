@@ -0,0 +1,110 @@
+package be.service;
+
+import be.domain.*;
+import be.domain.exception.*;
+import be.repository.*;
+import be.util.metric.*;
+import java.util.*;
+import java.util.concurrent.*;
+import lombok.*;
+import lombok.extern.slf4j.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 파일 요약, 카테고리, 태그를 {@link LlmCallPolicy} 로 동시에 구한다.
+ * <p>
+ * 단계마다 독립적으로 deadline 을 적용하므로, 한 단계가 늦거나 실패해도 나머지 결과는 그대로 쓴다.
+ * 실패한 단계는 {@link Enrichment} 에 null 로 남고, 호출 측이 대체 값을 정한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileEnricher {
+
+    private final FileSummarizer fileSummarizer;
+    private final FileCategoryExtractor fileCategoryExtractor;
+    private final FileTagExtractor fileTagExtractor;
+    private final TagRepository tagRepository;
+    private final LlmCallPolicy llmCallPolicy;
+    private final StageMetrics stageMetrics;
+
+    /**
+     * 세션 밖에서도 호출할 수 있다. 저장된 파일 이름, 미디어 타입, 파일 타입, 저장 인코딩만 읽는다.
+     */
+    public Enrichment enrich(File file) {
+        CompletableFuture<String> summary = llmCallPolicy.call(
+                Stage.SUMMARIZE, () -> fileSummarizer.summarize(file)
+        );
+        CompletableFuture<List<Category>> categories = llmCallPolicy.call(
+                Stage.EXTRACT_CATEGORY, () -> fileCategoryExtractor.extractCategory(file)
+        );
+        CompletableFuture<List<String>> tags = llmCallPolicy.call(
+                Stage.EXTRACT_TAG, () -> fileTagExtractor.extractTags(file)
+        );
+
+        Outcome<String> summaryOutcome = await(summary, Stage.SUMMARIZE, file);
+        Outcome<List<Category>> categoriesOutcome = await(categories, Stage.EXTRACT_CATEGORY, file);
+        Outcome<List<String>> tagsOutcome = await(tags, Stage.EXTRACT_TAG, file);
+
+        boolean unavailable = summaryOutcome.unavailable()
+                && categoriesOutcome.unavailable()
+                && tagsOutcome.unavailable();
+        return new Enrichment(
+                summaryOutcome.value(), categoriesOutcome.value(), tagsOutcome.value(), unavailable
+        );
+    }
+
+    /**
+     * 이미 있는 태그는 재사용하고, 없는 태그는 새로 만든다. 트랜잭션 안에서 호출해야 한다.
+     */
+    public List<Tag> resolveTags(List<String> tagDescriptions, FileType fileType) {
+        List<Tag> tags = new ArrayList<>();
+        for (String tagDescription : tagDescriptions) {
+            Tag tag = stageMetrics.record(Stage.DB_READ, fileType,
+                            () -> tagRepository.findByDescription(tagDescription))
+                    .orElseGet(() -> Tag.builder()
+                            .description(tagDescription)
+                            .build());
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    private <T> Outcome<T> await(CompletableFuture<T> future, Stage stage, File file) {
+        try {
+            return new Outcome<>(future.join(), false);
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            log.warn("{} for {} did not complete, using fallback: {}", stage, file.getSavedFileName(), cause.toString());
+            return new Outcome<>(null, cause instanceof LlmUnavailableException);
+        }
+    }
+
+    private record Outcome<T>(T value, boolean unavailable) {
+
+    }
+
+    /**
+     * @param unavailable 모든 단계가 회로 차단으로 호출조차 되지 않았으면 true
+     */
+    public record Enrichment(
+            String summary, List<Category> categories, List<String> tags, boolean unavailable
+    ) {
+
+        public boolean complete() {
+            return summary != null && categories != null && tags != null;
+        }
+
+        public String summaryOr(String fallback) {
+            return summary != null ? summary : fallback;
+        }
+
+        public List<Category> categoriesOr(List<Category> fallback) {
+            return categories != null ? categories : fallback;
+        }
+
+        public List<String> tagsOr(List<String> fallback) {
+            return tags != null ? tags : fallback;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package be.service;
+
+import be.domain.*;
+import java.util.*;
+
+/**
+ * 목록 필터 조건. 카테고리와 태그는 match 에 따라 모두 (ALL) 또는 하나라도 (ANY) 가진 파일을 고르고,
+ * fileType 은 어느 쪽이든 항상 만족해야 한다.
+ *
+ * @param tags 태그 설명. 대소문자까지 같아야 한다
+ */
+public record FileFilter(
+        Set<Category> categories,
+        Set<String> tags,
+        FileType fileType,
+        Match match
+) {
+
+    public FileFilter {
+        categories = categories == null || categories.isEmpty() ? Set.of() : Collections.unmodifiableSet(EnumSet.copyOf(categories));
+        tags = tags == null ? Set.of() : Collections.unmodifiableSet(new TreeSet<>(tags));
+        match = match == null ? Match.ALL : match;
+    }
+
+    public boolean isEmpty() {
+        return categories.isEmpty() && tags.isEmpty();
+    }
+
+    /**
+     * ETag 에 쓰는 조건 값. 순서와 중복이 달라도 같은 조건이면 같다.
+     */
+    public Object[] criteria() {
+        return new Object[]{categories.toString(), tags.toString(), fileType, match};
+    }
+
+    public enum Match {
+        ALL,
+        ANY;
+
+        public static Match resolveOrNull(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Match match : values()) {
+                if (match.name().equalsIgnoreCase(value.strip())) {
+                    return match;
+                }
+            }
+            return null;
+        }
+    }
+}
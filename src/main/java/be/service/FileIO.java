@@ -1,111 +1,195 @@
 package be.service;
 
 
-import be.domain.exception.*;
-import be.domain.exception.FileNotFoundException;
+import be.domain.*;
+import be.service.storage.*;
 import be.util.*;
-import jakarta.annotation.*;
+import be.util.metric.*;
 import java.io.*;
-import java.nio.file.*;
+import java.net.*;
+import java.time.*;
+import java.util.*;
+import java.util.zip.*;
 import lombok.extern.slf4j.*;
 import org.springframework.beans.factory.annotation.*;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.*;
+import org.springframework.util.unit.*;
 import org.springframework.web.multipart.*;
 
+/**
+ * 파일 내용 입출력의 진입점. 실제 저장 위치는 {@link FileStorage} 구현 (로컬 디스크, S3 호환 스토리지) 이 결정한다.
+ * <p>
+ * 크기 제한, SHA-256 계산, 단계별 지표 기록은 저장소 구현과 무관하게 여기서 처리한다.
+ * 압축 대상 미디어 타입은 gzip 으로 저장하며, 다이제스트와 size 는 항상 원본 기준이다.
+ */
 @Slf4j
 @Component
 public class FileIO {
 
-    private final String baseDir;
-    private final FileUtil files;
-    private Path baseDirPath;
+    private final FileStorage fileStorage;
+    private final long maxFileSize;
+    private final boolean redirectDownloads;
+    private final Duration presignTtl;
+    private final boolean compressionEnabled;
+    private final List<MediaType> compressibleTypes;
+    private final int compressionLevel;
+    private final StageMetrics stageMetrics;
 
     public FileIO(
-            @Value("${common-secret.file.main-directory}")
-            String baseDir,
-            FileUtil files
+            FileStorage fileStorage,
+            @Value("${common-secret.file.max-size}")
+            DataSize maxFileSize,
+            @Value("${file-storage.redirect-downloads}")
+            boolean redirectDownloads,
+            @Value("${file-storage.presign-ttl}")
+            Duration presignTtl,
+            @Value("${file-storage.compression.enabled}")
+            boolean compressionEnabled,
+            @Value("${file-storage.compression.media-types}")
+            List<String> compressibleTypes,
+            @Value("${file-storage.compression.level}")
+            int compressionLevel,
+            StageMetrics stageMetrics
     ) {
-        this.baseDir = baseDir;
-        this.files = files;
+        this.fileStorage = fileStorage;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.redirectDownloads = redirectDownloads;
+        this.presignTtl = presignTtl;
+        this.compressionEnabled = compressionEnabled;
+        this.compressibleTypes = compressibleTypes.stream().map(MediaType::parseMediaType).toList();
+        this.compressionLevel = compressionLevel;
+        this.stageMetrics = stageMetrics;
     }
 
-    @PostConstruct
-    private void init() {
-        try {
-            baseDirPath = Paths.get(baseDir);
-            if (!files.exists(baseDirPath)) {
-                files.createDirectories(baseDirPath);
+    /**
+     * 원본 내용. 압축 저장된 파일은 풀어서 돌려준다.
+     */
+    public byte[] getFileData(String fileName, StoredEncoding encoding) {
+        byte[] data = stageMetrics.record(Stage.FILE_READ, null, () -> {
+            try {
+                if (encoding == StoredEncoding.GZIP) {
+                    try (InputStream in = new GZIPInputStream(fileStorage.open(fileName))) {
+                        return in.readAllBytes();
+                    }
+                }
+                return fileStorage.readAllBytes(fileName);
+            } catch (IOException e) {
+                log.warn("Failed to read file data", e);
+                throw new RuntimeException(e);
             }
-        } catch (Exception e) {
-            log.warn("Failed to create storage directory", e);
-            throw new RuntimeException(e);
-        }
+        });
+
+        stageMetrics.recordFileBytes(Stage.FILE_READ, data.length);
+        return data;
     }
 
-    public byte[] getFileData(String fileName) {
-        Path target = this.getExistingPath(fileName);
+    /**
+     * 다운로드 응답용 스트림. decode 가 false 면 저장된 (압축된) 바이트 그대로다. 호출 측이 닫아야 한다.
+     */
+    public InputStream openFileData(String fileName, StoredEncoding encoding, boolean decode) {
+        return stageMetrics.record(Stage.FILE_READ, null, () -> {
+            try {
+                InputStream stored = fileStorage.open(fileName);
+                if (decode && encoding == StoredEncoding.GZIP) {
+                    return new GZIPInputStream(stored);
+                }
+                return stored;
+            } catch (IOException e) {
+                log.warn("Failed to open file data", e);
+                throw new RuntimeException(e);
+            }
+        });
+    }
 
-        try {
-            return files.readAllBytes(target);
-        } catch (IOException e) {
-            log.warn("Failed to read file data", e);
-            throw new RuntimeException(e);
+    /**
+     * 저장소가 지원하고 redirect-downloads 가 켜져 있으면, 바이트를 직접 내려받을 수 있는 짧은 수명의 URL.
+     * 압축 저장된 파일은 클라이언트가 해당 인코딩을 받을 수 있을 때만 넘긴다.
+     */
+    public Optional<URI> downloadRedirect(
+            String fileName, MediaType mediaType, StoredEncoding encoding, String acceptEncoding
+    ) {
+        if (!redirectDownloads || !encoding.acceptedBy(acceptEncoding)) {
+            return Optional.empty();
         }
+
+        String contentEncoding = encoding == StoredEncoding.IDENTITY ? null : encoding.getContentCoding();
+        return fileStorage.presignedDownloadUrl(fileName, mediaType, contentEncoding, presignTtl);
     }
 
     public void deleteFileData(String fileName) {
-        Path target = this.getExistingPath(fileName);
-
-        try {
-            files.delete(target);
-        } catch (IOException e) {
-            log.warn("Failed to delete file", e);
-            throw new RuntimeException(e);
-        }
+        stageMetrics.record(Stage.FILE_DELETE, null, () -> {
+            try {
+                fileStorage.delete(fileName);
+            } catch (IOException e) {
+                log.warn("Failed to delete file", e);
+                throw new RuntimeException(e);
+            }
+        });
     }
 
-    public void transferMultipartFile(MultipartFile multipartFile, String newFileName) {
-        Path target = baseDirPath.resolve(newFileName);
-
-        if (files.exists(target)) {
-            String errMsg = String.format(
-                    "File %s already exists in directory %s",
-                    newFileName, baseDir
-            );
-
-            FileAlreadyExistException ex = new FileAlreadyExistException(errMsg);
-            log.warn(errMsg, ex);
-            throw ex;
-        }
+    /**
+     * @return 지우지 못한 파일 이름
+     */
+    public List<String> deleteFileData(List<String> fileNames) {
+        return stageMetrics.record(Stage.FILE_DELETE, null, () -> fileStorage.deleteAll(fileNames));
+    }
 
+    public StoredFile transferMultipartFile(MultipartFile multipartFile, String newFileName) {
         if (multipartFile.isEmpty()) {
             log.warn("Multipart file is empty.");
         }
 
-        try {
-            multipartFile.transferTo(target);
+        try (InputStream in = multipartFile.getInputStream()) {
+            return writeStream(in, newFileName, multipartFile.getContentType());
         } catch (IOException e) {
             log.warn("Failed to transfer multipart file", e);
             throw new RuntimeException(e);
         }
     }
 
-    private Path getExistingPath(String fileName) {
-        Path target = baseDirPath.resolve(fileName);
+    /**
+     * 스트림을 최종 저장소에 한 번만 기록하면서 크기와 SHA-256 다이제스트를 함께 계산한다.
+     * <p>
+     * 최대 크기를 넘는 순간 기록을 중단하고 {@link MaxUploadSizeExceededException} 을 던진다.
+     * 압축 대상이면 읽는 쪽에서 gzip 으로 압축하며 흘려보내므로 추가 복사나 임시 파일이 없다.
+     */
+    public StoredFile writeStream(InputStream in, String newFileName, String mediaType) {
+        DigestingInputStream digesting = new DigestingInputStream(in, maxFileSize);
+        GzipCompressingInputStream compressing = compressible(mediaType)
+                ? new GzipCompressingInputStream(digesting, compressionLevel)
+                : null;
+
+        stageMetrics.record(Stage.FILE_WRITE, null, () -> {
+            try {
+                fileStorage.write(compressing != null ? compressing : digesting, newFileName);
+            } catch (IOException e) {
+                log.warn("Failed to write file stream", e);
+                throw new RuntimeException(e);
+            }
+        });
+
+        StoredFile stored = compressing != null
+                ? new StoredFile(newFileName, digesting.getSize(), digesting.hexDigest(),
+                StoredEncoding.GZIP, compressing.getCompressedSize())
+                : new StoredFile(newFileName, digesting.getSize(), digesting.hexDigest(),
+                StoredEncoding.IDENTITY, digesting.getSize());
 
-        if (!files.exists(target)) {
-            String errMsg = String.format(
-                    "File %s does not exist in directory %s",
-                    fileName, baseDir
-            );
+        stageMetrics.recordFileBytes(Stage.FILE_WRITE, stored.storedSize());
+        return stored;
+    }
 
-            FileNotFoundException ex = new FileNotFoundException();
-            log.warn(errMsg, ex);
-            throw ex;
+    private boolean compressible(String mediaType) {
+        if (!compressionEnabled || mediaType == null) {
+            return false;
         }
 
-        return target;
+        try {
+            MediaType parsed = MediaType.parseMediaType(mediaType);
+            return compressibleTypes.stream().anyMatch(type -> type.includes(parsed));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
     }
 }
-
-
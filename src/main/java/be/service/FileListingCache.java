@@ -0,0 +1,103 @@
+package be.service;
+
+import be.domain.*;
+import com.github.benmanes.caffeine.cache.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.event.*;
+import org.springframework.util.unit.*;
+
+/**
+ * (category, fileType) 목록 조회 결과 캐시. 항목 크기를 추정해 전체 용량 (max-weight) 으로 제한한다.
+ * <p>
+ * 키에 {@link ListingVersions} 의 목록 버전을 포함하므로, 조회 전에 구한 버전이 다르면 항상 새로 읽는다.
+ * 파일 변경 이벤트가 오면 해당 카테고리와 타입에 걸친 항목만 바로 비워 오래된 버전이 용량을 차지하지 않게 한다.
+ */
+@Component
+public class FileListingCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    private static final int FILE_OVERHEAD_BYTES = 512;
+
+    private final boolean enabled;
+    private final Cache<Key, List<File>> cache;
+
+    public FileListingCache(
+            @Value("${listing-cache.enabled}")
+            boolean enabled,
+            @Value("${listing-cache.max-weight}")
+            DataSize maxWeight,
+            @Value("${listing-cache.expire-after-write}")
+            Duration expireAfterWrite,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight.toBytes())
+                .weigher((Key key, List<File> files) -> weigh(files))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "file.listing");
+    }
+
+    /**
+     * version 은 목록을 조회하기 전에 구한 값이어야 한다.
+     */
+    public List<File> get(Category category, FileType fileType, String version, Supplier<List<File>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        return cache.get(new Key(category, fileType, version), key -> {
+            List<File> files = loader.get();
+            // 캐시된 엔티티는 세션 밖에서 직렬화되므로 지연 로딩 컬렉션을 미리 채운다.
+            for (File file : files) {
+                Hibernate.initialize(file.getCategories());
+                Hibernate.initialize(file.getTags());
+            }
+            return List.copyOf(files);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileChanged(FileChangedEvent event) {
+        cache.asMap().keySet().removeIf(key -> key.touchedBy(event));
+    }
+
+    private static int weigh(List<File> files) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (File file : files) {
+            bytes += FILE_OVERHEAD_BYTES
+                    + length(file.getOriginalFileName())
+                    + length(file.getFileOverview())
+                    + length(file.getSavedFileName());
+            for (Tag tag : file.getTags()) {
+                bytes += 64 + length(tag.getDescription());
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length() * 2;
+    }
+
+    private record Key(Category category, FileType fileType, String version) {
+
+        private boolean touchedBy(FileChangedEvent event) {
+            if (category == null && fileType == null) {
+                return true;
+            }
+            return (category != null && event.categories().contains(category))
+                    || (fileType != null && fileType == event.fileType());
+        }
+    }
+}
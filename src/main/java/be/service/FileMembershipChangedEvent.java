@@ -0,0 +1,40 @@
+package be.service;
+
+import be.domain.*;
+import java.util.*;
+
+/**
+ * 파일의 타입, 카테고리, 태그 소속이 바뀌었음을 알린다. 새 파일은 before 가, 삭제된 파일은 after 가 {@link Membership#NONE} 이다.
+ * 트랜잭션이 커밋된 뒤에 메모리 색인 (태그 자동완성, 필터 bitmap) 을 갱신하는 데 사용한다.
+ */
+public record FileMembershipChangedEvent(
+        Long fileId,
+        Membership before,
+        Membership after
+) {
+
+    /**
+     * @param tags 태그 설명
+     */
+    public record Membership(
+            FileType fileType,
+            List<Category> categories,
+            List<String> tags
+    ) {
+
+        public static final Membership NONE = new Membership(null, List.of(), List.of());
+
+        public Membership {
+            categories = categories == null ? List.of() : List.copyOf(categories);
+            tags = tags == null ? List.of() : List.copyOf(tags);
+        }
+
+        public static Membership of(File file) {
+            return new Membership(
+                    file.getFileType(),
+                    file.getCategories(),
+                    file.getTags().stream().map(Tag::getDescription).filter(Objects::nonNull).toList()
+            );
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package be.service;
+
+import be.domain.*;
+import be.domain.exception.*;
+import be.repository.*;
+import java.util.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.*;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * 업로드 때 LLM 분석이 deadline 안에 끝나지 않아 대체 값으로 저장된 파일을 다시 분석한다.
+ * <p>
+ * LLM 호출은 트랜잭션 밖에서 하고, 성공한 단계의 결과만 짧은 트랜잭션으로 반영한 뒤 벡터 색인을 다시 예약한다.
+ * 회로 차단기가 열려 있으면 시도 횟수를 세지 않고 다음 주기로 미룬다.
+ */
+@Slf4j
+@Component
+public class FileReEnricher {
+
+    private final FileRepository fileRepository;
+    private final VectorIndexOutboxRepository outboxRepository;
+    private final FileEnricher fileEnricher;
+    private final IngestAdmission ingestAdmission;
+    private final FacetCounter facetCounter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    public FileReEnricher(
+            FileRepository fileRepository,
+            VectorIndexOutboxRepository outboxRepository,
+            FileEnricher fileEnricher,
+            IngestAdmission ingestAdmission,
+            FacetCounter facetCounter,
+            ApplicationEventPublisher eventPublisher,
+            TransactionTemplate transactionTemplate,
+            @Value("${file-enrichment.retry.batch-size}")
+            int batchSize,
+            @Value("${file-enrichment.retry.max-attempts}")
+            int maxAttempts
+    ) {
+        this.fileRepository = fileRepository;
+        this.outboxRepository = outboxRepository;
+        this.fileEnricher = fileEnricher;
+        this.ingestAdmission = ingestAdmission;
+        this.facetCounter = facetCounter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Scheduled(fixedDelayString = "${file-enrichment.retry.poll-interval}")
+    public void reEnrich() {
+        try {
+            List<Long> fileIds = fileRepository.findIdsNeedingEnrichment(maxAttempts, PageRequest.of(0, batchSize));
+            for (Long fileId : fileIds) {
+                if (!reEnrich(fileId)) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("File re-enrichment failed, will retry", e);
+        }
+    }
+
+    /**
+     * @return LLM 을 호출할 수 있었으면 true. LLM 이나 메모리 한도에 여유가 없으면 false
+     */
+    boolean reEnrich(Long fileId) {
+        Optional<File> found = fileRepository.findByIdAndDeletedAtIsNull(fileId);
+        if (found.isEmpty()) {
+            return true;
+        }
+
+        // 업로드와 같은 메모리 한도를 쓴다
+        FileEnricher.Enrichment enrichment;
+        try (IngestAdmission.Ticket ticket = ingestAdmission.admit(found.get().getFileSize())) {
+            enrichment = fileEnricher.enrich(found.get());
+        } catch (IngestOverloadedException e) {
+            log.info("Ingest budget exhausted, postponing re-enrichment of file {}", fileId);
+            return false;
+        }
+        if (enrichment.unavailable()) {
+            log.info("LLM unavailable, postponing re-enrichment of file {}", fileId);
+            return false;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> fileRepository.findByIdAndDeletedAtIsNull(fileId)
+                .ifPresent(file -> apply(file, enrichment)));
+        log.info("Re-enriched file {} (complete: {})", fileId, enrichment.complete());
+        return true;
+    }
+
+    private void apply(File file, FileEnricher.Enrichment enrichment) {
+        List<Category> before = List.copyOf(file.getCategories());
+        FileMembershipChangedEvent.Membership membershipBefore = FileMembershipChangedEvent.Membership.of(file);
+        Set<Category> touched = new HashSet<>(before);
+
+        List<Tag> tags = enrichment.tags() == null
+                ? file.getTags()
+                : fileEnricher.resolveTags(enrichment.tags(), file.getFileType());
+        file.enrichMetadata(
+                enrichment.summaryOr(file.getFileOverview()),
+                enrichment.categoriesOr(file.getCategories()),
+                tags
+        );
+        file.recordEnrichmentAttempt(enrichment.complete());
+        touched.addAll(file.getCategories());
+        facetCounter.recordRecategorized(before, file.getCategories());
+
+        outboxRepository.save(VectorIndexOutbox.of(file.getId()));
+        // 목록 버전과 캐시는 커밋 이후에 갱신된다
+        eventPublisher.publishEvent(new FileChangedEvent(List.copyOf(touched), file.getFileType()));
+        eventPublisher.publishEvent(new FileMembershipChangedEvent(
+                file.getId(), membershipBefore, FileMembershipChangedEvent.Membership.of(file)
+        ));
+    }
+}
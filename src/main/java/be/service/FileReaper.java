@@ -0,0 +1,117 @@
+package be.service;
+
+import be.domain.*;
+import be.repository.*;
+import be.util.metric.*;
+import java.time.*;
+import java.util.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * 삭제 표시된 파일을 배치로 정리한다.
+ * <p>
+ * 배치마다 벡터 문서는 한 번의 delete 요청으로, 파일 내용은 저장소의 일괄 삭제로 지운 뒤 행을 삭제한다.
+ * 내용 삭제에 실패한 파일은 행을 남기고 실패 횟수에 따라 지수적으로 (retry-backoff 부터 retry-backoff-max 까지) 미뤄 다시 시도한다.
+ * 미뤄진 파일은 그동안 배치에 들어오지 않으므로, 계속 실패하는 파일이 쌓여도 나머지 파일의 정리를 막지 않는다.
+ * 각 단계는 반복해도 결과가 같다.
+ */
+@Slf4j
+@Component
+public class FileReaper {
+
+    private final FileRepository fileRepository;
+    private final VectorIndexOutboxRepository outboxRepository;
+    private final FileVectorRepository fileVectorRepository;
+    private final FileIO fileIO;
+    private final StageMetrics stageMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final Duration retryBackoffMax;
+
+    public FileReaper(
+            FileRepository fileRepository,
+            VectorIndexOutboxRepository outboxRepository,
+            FileVectorRepository fileVectorRepository,
+            FileIO fileIO,
+            StageMetrics stageMetrics,
+            TransactionTemplate transactionTemplate,
+            @Value("${file-deletion.reaper.batch-size}")
+            int batchSize,
+            @Value("${file-deletion.reaper.retry-backoff}")
+            Duration retryBackoff,
+            @Value("${file-deletion.reaper.retry-backoff-max}")
+            Duration retryBackoffMax
+    ) {
+        this.fileRepository = fileRepository;
+        this.outboxRepository = outboxRepository;
+        this.fileVectorRepository = fileVectorRepository;
+        this.fileIO = fileIO;
+        this.stageMetrics = stageMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.retryBackoffMax = retryBackoffMax;
+    }
+
+    @Scheduled(fixedDelayString = "${file-deletion.reaper.poll-interval}")
+    public void reap() {
+        try {
+            boolean more;
+            do {
+                more = reapBatch();
+            } while (more);
+        } catch (RuntimeException e) {
+            log.warn("File reaper failed, will retry", e);
+        }
+    }
+
+    /**
+     * @return 배치가 가득 찼고 모두 정리돼 바로 이어서 진행할 수 있으면 true
+     */
+    boolean reapBatch() {
+        List<File> tombstoned = stageMetrics.record(Stage.DB_READ, null,
+                () -> fileRepository.findTombstoned(LocalDateTime.now(), PageRequest.of(0, batchSize)));
+        if (tombstoned.isEmpty()) {
+            return false;
+        }
+
+        List<Long> fileIds = tombstoned.stream().map(File::getId).toList();
+        fileVectorRepository.deleteAll(fileIds);
+
+        List<String> failed = fileIO.deleteFileData(tombstoned.stream().map(File::getSavedFileName).toList());
+        Set<String> failedNames = new HashSet<>(failed);
+        List<Long> reaped = tombstoned.stream()
+                .filter(file -> !failedNames.contains(file.getSavedFileName()))
+                .map(File::getId)
+                .toList();
+        List<Long> deferred = tombstoned.stream()
+                .filter(file -> failedNames.contains(file.getSavedFileName()))
+                .map(File::getId)
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteByFileIdIn(reaped);
+            fileRepository.deleteAll(fileRepository.findAllById(reaped));
+
+            LocalDateTime now = LocalDateTime.now();
+            for (File file : fileRepository.findAllById(deferred)) {
+                file.deferReap(now.plus(backoff(file.getReapAttempts())));
+            }
+        });
+
+        log.info("Reaped {} deleted files ({} deferred for retry)", reaped.size(), deferred.size());
+        // 실패한 파일은 미뤄졌으므로 다음 배치는 그 뒤의 파일을 읽는다
+        return tombstoned.size() == batchSize;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(retryBackoffMax) > 0 ? retryBackoffMax : delay;
+    }
+}
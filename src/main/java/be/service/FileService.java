@@ -5,13 +5,18 @@ import be.domain.*;
 import be.domain.exception.*;
 import be.repository.*;
 import be.util.*;
+import be.util.metric.*;
+import java.io.InputStream;
+import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
 import lombok.*;
 import lombok.extern.slf4j.*;
+import org.springframework.context.*;
 import org.springframework.dao.*;
 import org.springframework.stereotype.*;
 import org.springframework.transaction.annotation.*;
+import org.springframework.transaction.support.*;
 import org.springframework.web.multipart.*;
 
 @Slf4j
@@ -19,47 +24,166 @@ import org.springframework.web.multipart.*;
 @RequiredArgsConstructor
 public class FileService {
 
+    private static final int FETCH_CHUNK = 1000;
+    private static final Duration FILTER_RETRY_AFTER = Duration.ofSeconds(5);
+
     private final UuidProvider uuidProvider;
     private final FileIO fileIO;
     private final FileRepository fileRepository;
-    private final FileCategoryExtractor fileCategoryExtractor;
-    private final FileSummarizer fileSummarizer;
-    private final FileTagExtractor fileTagExtractor;
-    private final TagRepository tagRepository;
+    private final FileEnricher fileEnricher;
     private final FileVectorRepository fileVectorRepository;
     private final CategoryRecoder categoryRecoder;
     private final CategoryRecommender categoryRecommender;
+    private final StageMetrics stageMetrics;
+    private final ListingVersions listingVersions;
+    private final FileListingCache fileListingCache;
+    private final VectorIndexOutboxRepository vectorIndexOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FacetCounter facetCounter;
+    private final FileBitmapIndex fileBitmapIndex;
+    private final TransactionTemplate transactionTemplate;
 
     public List<File> getFiles(Category category, FileType fileType) {
+        String version = listingVersions.listingETag(category, fileType);
+        List<File> find = fileListingCache.get(
+                category, fileType, version, () -> findFiles(category, fileType)
+        );
+
+        // 캐시에서 응답한 경우에도 방문은 기록한다
+        recordListingVisit(category);
+
+        return find;
+    }
+
+    /**
+     * 여러 카테고리와 태그로 거른 목록. {@link FileBitmapIndex} 로 id 를 고른 뒤 id 로 읽으며, 목록 캐시는 쓰지 않는다.
+     */
+    public List<File> getFiles(FileFilter filter) {
+        List<Long> ids = fileBitmapIndex.matching(filter)
+                .orElseThrow(() -> new FilterIndexNotReadyException(FILTER_RETRY_AFTER));
+        List<File> find = stageMetrics.record(Stage.DB_READ, filter.fileType(), () -> findAllByIds(ids));
+
+        filter.categories().forEach(this::recordListingVisit);
 
-        List<File> find;
+        return find;
+    }
+
+    /**
+     * 방문을 기록하지 않고 전체, 파일 타입별, 주어진 카테고리별 목록 캐시를 채운다.
+     * 시작 시 warm-up 에서 호출한다.
+     *
+     * @return 읽어 들인 파일 수
+     */
+    @Transactional(readOnly = true)
+    public int preloadListings(Collection<Category> categories) {
+        List<Map.Entry<Category, FileType>> listings = new ArrayList<>();
+        listings.add(new AbstractMap.SimpleEntry<>(null, null));
+        for (FileType fileType : FileType.values()) {
+            listings.add(new AbstractMap.SimpleEntry<>(null, fileType));
+        }
+        for (Category category : categories) {
+            listings.add(new AbstractMap.SimpleEntry<>(category, null));
+        }
+
+        int loaded = 0;
+        for (Map.Entry<Category, FileType> listing : listings) {
+            Category category = listing.getKey();
+            FileType fileType = listing.getValue();
+            String version = listingVersions.listingETag(category, fileType);
+            loaded += fileListingCache.get(
+                    category, fileType, version, () -> findFiles(category, fileType)
+            ).size();
+        }
+        return loaded;
+    }
 
+    private List<File> findFiles(Category category, FileType fileType) {
         if (category == null && fileType == null) {
-            find = fileRepository.findAllBy();
+            return stageMetrics.record(Stage.DB_READ, null, fileRepository::findAllByDeletedAtIsNull);
         } else if (fileType == null) {
-            find = fileRepository.findByCategory(category);
-            categoryRecoder.increaseVisitCount(category);
+            return stageMetrics.record(Stage.DB_READ, null,
+                    () -> findByCategory(category, null));
         } else if (category == null) {
-            find = fileRepository.findByFileType(fileType);
+            return stageMetrics.record(Stage.DB_READ, fileType,
+                    () -> fileRepository.findByFileType(fileType));
         } else {
-            find = fileRepository.findByCategoryAndFileType(category, fileType);
-            categoryRecoder.increaseVisitCount(category);
+            return stageMetrics.record(Stage.DB_READ, fileType,
+                    () -> findByCategory(category, fileType));
         }
+    }
 
-        return find;
+    /**
+     * 색인이 준비되지 않았으면 member of 조회로 읽는다.
+     */
+    private List<File> findByCategory(Category category, FileType fileType) {
+        FileFilter filter = new FileFilter(Set.of(category), Set.of(), fileType, FileFilter.Match.ALL);
+        Optional<List<Long>> ids = fileBitmapIndex.matching(filter);
+        if (ids.isPresent()) {
+            return findAllByIds(ids.get());
+        }
+        return fileType == null
+                ? fileRepository.findByCategory(category)
+                : fileRepository.findByCategoryAndFileType(category, fileType);
+    }
+
+    private List<File> findAllByIds(List<Long> ids) {
+        List<File> files = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += FETCH_CHUNK) {
+            files.addAll(fileRepository.findAllWithTagsByIdIn(ids.subList(from, Math.min(ids.size(), from + FETCH_CHUNK))));
+        }
+        return files;
+    }
+
+    /**
+     * 목록을 조회하기 전에 구해야 한다. {@link ListingVersions} 참고.
+     */
+    public String getListingETag(Category category, FileType fileType) {
+        return listingVersions.listingETag(category, fileType);
+    }
+
+    /**
+     * 필터 목록은 어느 파일이 바뀌어도 달라질 수 있으므로 전체 목록 버전과 필터 조건으로 만든다.
+     */
+    public String getFilterETag(FileFilter filter) {
+        return listingVersions.listingETag(null, null) + "-f" + Integer.toHexString(Arrays.hashCode(filter.criteria()));
+    }
+
+    public String getSearchETag(String query, Integer topK, Double similarityThreshold, Category category, FileType fileType) {
+        return listingVersions.searchETag(query, topK, similarityThreshold, category, fileType);
+    }
+
+    /**
+     * 304 로 응답해 목록을 조회하지 않은 경우에도 카테고리 방문은 기록한다.
+     */
+    public void recordListingVisit(Category category) {
+        if (category != null) {
+            categoryRecoder.increaseVisitCount(category);
+        }
     }
 
     public FileInfo getFileInfo(Long fileId) {
-        File find = fileRepository.findById(fileId)
+        File find = stageMetrics.record(Stage.DB_READ, null, () -> fileRepository.findByIdAndDeletedAtIsNull(fileId))
                 .orElseThrow(FileNotFoundException::new);
 
-        return new FileInfo(find.getId(), find.getFileMediaType(), find.getSavedFileName());
+        return new FileInfo(
+                find.getId(), find.getFileMediaType(), find.getSavedFileName(), find.getStoredEncoding()
+        );
+    }
+
+    public List<StorageSavings> getStorageSavings() {
+        return stageMetrics.record(Stage.DB_READ, null, fileRepository::sumStorageUsageByMediaType)
+                .stream()
+                .map(usage -> StorageSavings.of(
+                        usage.getMediaType(), usage.getFileCount(),
+                        usage.getOriginalBytes(), usage.getStoredBytes()
+                ))
+                .sorted(Comparator.comparingLong(StorageSavings::savedBytes).reversed())
+                .toList();
     }
 
     public List<File> searchFiles(String query, Integer topK, Double similarityThreshold, Category category, FileType fileType) {
-        int k = (topK != null && topK > 0) ? topK : 10;
-        double threshold = (similarityThreshold != null && similarityThreshold >= 0 && similarityThreshold <= 1) 
-                ? similarityThreshold : 0.7;
+        int k = resolveTopK(topK);
+        double threshold = resolveThreshold(similarityThreshold);
         
         log.info("Searching files with query: {}, topK: {}, threshold: {}, category: {}, fileType: {}", 
                 query, k, threshold, category, fileType);
@@ -69,7 +193,96 @@ public class FileService {
         return results;
     }
 
+    /**
+     * 모든 검색어를 한 번의 임베딩 요청으로 계산한 뒤, 벡터 검색은 동시에 실행한다.
+     * 결과는 요청한 검색어 순서대로 돌려준다.
+     */
+    public List<List<File>> searchFilesBatch(List<SearchQuery> queries) {
+        fileVectorRepository.primeQueryEmbeddings(queries.stream().map(SearchQuery::query).toList());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<File>>> futures = new ArrayList<>();
+            for (SearchQuery q : queries) {
+                Category category = Category.resolveOrNull(q.category());
+                FileType fileType = FileType.resolveOrNull(q.type());
+                futures.add(executor.submit(MdcContext.wrap(() -> fileVectorRepository.searchSimilarFiles(
+                        q.query(), resolveTopK(q.topK()), resolveThreshold(q.similarityThreshold()),
+                        category, fileType
+                ))::get));
+            }
+
+            List<List<File>> results = new ArrayList<>();
+            for (Future<List<File>> future : futures) {
+                results.add(future.get());
+            }
+            log.info("Batch search of {} queries found {} files", queries.size(),
+                    results.stream().mapToInt(List::size).sum());
+            return results;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int resolveTopK(Integer topK) {
+        return (topK != null && topK > 0) ? topK : 10;
+    }
+
+    private static double resolveThreshold(Double similarityThreshold) {
+        return (similarityThreshold != null && similarityThreshold >= 0 && similarityThreshold <= 1)
+                ? similarityThreshold : 0.7;
+    }
+
+    /**
+     * 삭제 표시만 하고 바로 돌아온다. 벡터와 파일 내용, 행은 {@link FileReaper} 가 배치로 정리한다.
+     */
     @Transactional
+    public void deleteFile(Long fileId) {
+        File file = stageMetrics.record(Stage.DB_READ, null, () -> fileRepository.findByIdAndDeletedAtIsNull(fileId))
+                .orElseThrow(FileNotFoundException::new);
+
+        tombstone(file);
+    }
+
+    /**
+     * 존재하지 않거나 이미 삭제된 id 는 건너뛴다.
+     *
+     * @return 새로 삭제 표시한 파일 수
+     */
+    @Transactional
+    public int deleteFiles(List<Long> fileIds) {
+        List<File> files = stageMetrics.record(Stage.DB_READ, null, () -> fileRepository.findAllById(fileIds));
+
+        int deleted = 0;
+        for (File file : files) {
+            if (!file.isDeleted()) {
+                tombstone(file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private void tombstone(File file) {
+        file.markDeleted();
+        facetCounter.recordDeleted(file.getFileType(), file.getCategories());
+        // 목록 버전과 캐시, 메모리 색인은 커밋 이후에 갱신된다
+        eventPublisher.publishEvent(new FileChangedEvent(file.getCategories(), file.getFileType()));
+        eventPublisher.publishEvent(new FileMembershipChangedEvent(
+                file.getId(), FileMembershipChangedEvent.Membership.of(file), FileMembershipChangedEvent.Membership.NONE
+        ));
+    }
+
+    /**
+     * 파일 내용 기록과 LLM 분석은 트랜잭션 밖에서 하고, 행 기록만 짧은 트랜잭션으로 한다.
+     * 기록에 실패하면 저장한 파일 내용을 지운다.
+     */
     public File saveFile(MultipartFile multipartFile) {
         // 1. 파일 메타데이터 생성
         String originalFileName = multipartFile.getOriginalFilename();
@@ -77,11 +290,46 @@ public class FileService {
         String fileMediaType = multipartFile.getContentType();
 
         // 2. 파일을 먼저 저장 (LLM이 파일 내용을 읽을 수 있도록)
-        fileIO.transferMultipartFile(multipartFile, newFileName);
+        StoredFile stored = fileIO.transferMultipartFile(multipartFile, newFileName);
         log.info("Saved file with content type: {}", fileMediaType);
 
+        return recordOrDiscard(originalFileName, fileMediaType, stored);
+    }
+
+    /**
+     * 요청 본문을 임시 디렉터리를 거치지 않고 최종 저장 위치에 바로 기록한다.
+     * 본문을 읽는 동안 DB 커넥션을 잡지 않도록 트랜잭션 밖에서 기록한다.
+     */
+    public File saveFile(InputStream content, String originalFileName, String fileMediaType) {
+        // 1. 파일 메타데이터 생성
+        String newFileName = uuidProvider.getRandomStringUUID();
+
+        // 2. 파일을 먼저 저장 (LLM이 파일 내용을 읽을 수 있도록)
+        StoredFile stored = fileIO.writeStream(content, newFileName, fileMediaType);
+        log.info("Streamed file with content type: {}, size: {}", fileMediaType, stored.size());
+
+        return recordOrDiscard(originalFileName, fileMediaType, stored);
+    }
+
+    private File recordOrDiscard(String originalFileName, String fileMediaType, StoredFile stored) {
+        try {
+            return recordFile(originalFileName, fileMediaType, stored);
+        } catch (RuntimeException e) {
+            try {
+                fileIO.deleteFileData(stored.savedFileName());
+            } catch (RuntimeException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+                log.error("Failed to discard stored file {} after recording failed", stored.savedFileName(), deleteFailure);
+            }
+            throw e;
+        }
+    }
+
+    private File recordFile(String originalFileName, String fileMediaType, StoredFile stored) {
+        String newFileName = stored.savedFileName();
+
         // 3. 미디어 타입 기반으로 FileType 추출
-        FileType fileType = FileType.fromMediaType(fileMediaType);
+        FileType fileType = MediaTypeRegistry.lookup(fileMediaType).fileType();
         log.info("Resolved file type: {}", fileType);
 
         // 4. 임시 File 엔티티 생성 (LLM 분석용)
@@ -90,54 +338,76 @@ public class FileService {
                 .savedFileName(newFileName)
                 .fileMediaType(fileMediaType)
                 .fileType(fileType)
+                .fileSize(stored.size())
+                .storedEncoding(stored.encoding())
                 .build();
 
-        // 5. LLM을 활용한 메타데이터 추출 (병렬 실행)
-        CompletableFuture<String> summaryFuture = CompletableFuture.supplyAsync(
-                () -> fileSummarizer.summarize(tempFile)
-        );
-        CompletableFuture<List<Category>> categoriesFuture = CompletableFuture.supplyAsync(
-                () -> fileCategoryExtractor.extractCategory(tempFile)
-        );
-        CompletableFuture<List<String>> tagsFuture = CompletableFuture.supplyAsync(
-                () -> fileTagExtractor.extractTags(tempFile)
-        );
-
-        // 모든 LLM 호출이 완료될 때까지 대기
-        CompletableFuture.allOf(summaryFuture, categoriesFuture, tagsFuture).join();
+        // 5. LLM을 활용한 메타데이터 추출 (병렬 실행, 단계별 deadline)
+        FileEnricher.Enrichment enrichment = fileEnricher.enrich(tempFile);
 
-        // 결과 병합
-        String summary = summaryFuture.join();
-        List<Category> categories = categoriesFuture.join();
-        List<String> tagDescriptions = tagsFuture.join();
+        // 시간 안에 끝나지 않은 단계는 대체 값으로 저장하고, FileReEnricher 가 다시 분석한다
+        String summary = enrichment.summaryOr(originalFileName);
+        List<Category> categories = enrichment.categoriesOr(List.of(Category.ETC));
+        List<String> tagDescriptions = enrichment.tagsOr(List.of());
 
         log.info("Extracted categories: {}", categories);
         log.info("Generated summary: {}", summary);
         log.info("Generated tags: {}", tagDescriptions);
 
-        // 6. 태그 생성
-        List<Tag> tags = new ArrayList<>();
-        for (String tagDescription : tagDescriptions) {
-            Tag tag = tagRepository.findByDescription(tagDescription)
-                    .orElseGet(() -> Tag.builder()
-                            .description(tagDescription)
-                            .build());
-            tags.add(tag);
+        // 6 ~ 9. 행 기록은 짧은 트랜잭션으로 한다
+        File savedFile = transactionTemplate.execute(status -> persist(
+                originalFileName, fileMediaType, stored, fileType, enrichment.complete(), summary, categories, tagDescriptions
+        ));
+        log.info("Successfully saved file with id: {}", savedFile.getId());
+
+        // 10. 카테고리 생성된거 기록 (추천용)
+        for (Category category : categories)    {
+            categoryRecoder.recordAddedCategory(category);
         }
 
+        // 11. 비동기로 카테고리 추천 캐시 갱신 (사용자 응답에 영향 없음)
+        CompletableFuture.runAsync(() -> {
+            try {
+                log.info("Background task: Refreshing category recommendation cache");
+                categoryRecommender.refreshRecommendations();
+                log.info("Background task: Successfully refreshed category recommendation cache");
+            } catch (Exception e) {
+                log.error("Background task: Failed to refresh category recommendation cache", e);
+            }
+        });
+
+        return savedFile;
+    }
+
+    private File persist(
+            String originalFileName, String fileMediaType, StoredFile stored, FileType fileType,
+            boolean enrichmentComplete, String summary, List<Category> categories, List<String> tagDescriptions
+    ) {
+        String newFileName = stored.savedFileName();
+
+        // 6. 태그 생성
+        List<Tag> tags = fileEnricher.resolveTags(tagDescriptions, fileType);
+
         // 7. File 엔티티 생성 및 메타데이터 enrichment
         File file = File.builder()
                 .originalFileName(originalFileName)
                 .savedFileName(newFileName)
                 .fileMediaType(fileMediaType)
                 .fileType(fileType)
+                .fileSize(stored.size())
+                .contentDigest(stored.sha256())
+                .storedEncoding(stored.encoding())
+                .storedSize(stored.storedSize())
                 .build();
         file.enrichMetadata(summary, categories, tags);
+        if (!enrichmentComplete) {
+            file.requireEnrichment();
+        }
 
         // 8. File 엔티티 저장
         File savedFile;
         try {
-            savedFile = fileRepository.save(file);
+            savedFile = stageMetrics.record(Stage.DB_WRITE, fileType, () -> fileRepository.save(file));
         } catch (DataIntegrityViolationException e) {
             String errMsg = String.format(
                     "Failed to record entity due to ex: %s",
@@ -147,25 +417,16 @@ public class FileService {
             log.warn(errMsg, ex);
             throw ex;
         }
-        // 9. 파일 벡터화 저장
-        fileVectorRepository.save(savedFile);
-        log.info("Successfully saved file with id: {}", savedFile.getId());
+        // 9. 파일 벡터화 예약 (같은 트랜잭션의 outbox 에 기록, VectorIndexer 가 반영)
+        stageMetrics.record(Stage.DB_WRITE, fileType,
+                () -> vectorIndexOutboxRepository.save(VectorIndexOutbox.of(savedFile.getId())));
+        facetCounter.recordSaved(fileType, categories);
 
-        // 10. 카테고리 생성된거 기록 (추천용)
-        for (Category category : categories)    {
-            categoryRecoder.recordAddedCategory(category);
-        }
-
-        // 11. 비동기로 카테고리 추천 캐시 갱신 (사용자 응답에 영향 없음)
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.info("Background task: Refreshing category recommendation cache");
-                categoryRecommender.refreshRecommendations();
-                log.info("Background task: Successfully refreshed category recommendation cache");
-            } catch (Exception e) {
-                log.error("Background task: Failed to refresh category recommendation cache", e);
-            }
-        });
+        // 목록 버전과 메모리 색인은 커밋 이후에 갱신된다
+        eventPublisher.publishEvent(new FileChangedEvent(categories, fileType));
+        eventPublisher.publishEvent(new FileMembershipChangedEvent(
+                savedFile.getId(), FileMembershipChangedEvent.Membership.NONE, FileMembershipChangedEvent.Membership.of(savedFile)
+        ));
 
         return savedFile;
     }
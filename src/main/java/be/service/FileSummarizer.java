@@ -1,21 +1,20 @@
 package be.service;
 
 import be.domain.*;
+import be.util.metric.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.content.Media;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.MimeType;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileSummarizer {
     private final ChatClient chatClient;
-    private final FileIO fileIO;
+    private final EnrichmentInput enrichmentInput;
+    private final SystemPromptCache systemPromptCache;
+    private final ModelRouter modelRouter;
 
     private static final String systemPrompt, userInputPrompt;
 
@@ -65,25 +64,17 @@ public class FileSummarizer {
     }
 
     public String summarize(File file) {
-        Media media = new Media(getMimeType(file), getFileResource(file));
-        log.info(media.toString());
-        log.info(media.getMimeType().toString());
-        return chatClient.prompt()
-                .system(s -> s.text(systemPrompt)
-                )
-                .user(u -> u.text(userInputPrompt)
-                        .media(new Media(getMimeType(file), getFileResource(file)))
-                )
-                .call()
-                .content();
-    }
+        EnrichmentInput.Prepared input = enrichmentInput.prepare(file);
 
-    private MimeType getMimeType(File file) {
-        return MimeType.valueOf(file.getFileMediaType().toString());
-    }
+        return modelRouter.call(Stage.SUMMARIZE, file, route -> {
+            ChatClient.ChatClientRequestSpec request = chatClient.prompt()
+                    .advisors(StageMetricsAdvisor.stage(Stage.SUMMARIZE, file.getFileType()))
+                    .user(u -> input.applyTo(u, userInputPrompt));
+            systemPromptCache.applyTo(request, systemPrompt, route);
 
-    private Resource getFileResource(File file) {
-        return new ByteArrayResource(fileIO.getFileData(file.getSavedFileName()));
+            return request.call()
+                    .content();
+        });
     }
 
 }
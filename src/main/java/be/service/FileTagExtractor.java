@@ -1,14 +1,10 @@
 package be.service;
 
 import be.domain.*;
+import be.util.metric.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.content.Media;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.MimeType;
 
 import java.util.List;
 
@@ -16,7 +12,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FileTagExtractor {
     private final ChatClient chatClient;
-    private final FileIO fileIO;
+    private final EnrichmentInput enrichmentInput;
+    private final SystemPromptCache systemPromptCache;
+    private final ModelRouter modelRouter;
 
     private static final String systemPrompt, userInputPrompt;
 
@@ -36,22 +34,17 @@ public class FileTagExtractor {
     }
 
     public List<String> extractTags(File file) {
-        return chatClient.prompt()
-                .system(s -> s.text(systemPrompt)
-                )
-                .user(u -> u.text(userInputPrompt)
-                        .media(new Media(getMimeType(file), getFileResource(file)))
-                )
-                .call()
-                .entity(new ParameterizedTypeReference<>() {});
-    }
+        EnrichmentInput.Prepared input = enrichmentInput.prepare(file);
 
-    private MimeType getMimeType(File file) {
-        return MimeType.valueOf(file.getFileMediaType().toString());
-    }
+        return modelRouter.call(Stage.EXTRACT_TAG, file, route -> {
+            ChatClient.ChatClientRequestSpec request = chatClient.prompt()
+                    .advisors(StageMetricsAdvisor.stage(Stage.EXTRACT_TAG, file.getFileType()))
+                    .user(u -> input.applyTo(u, userInputPrompt));
+            systemPromptCache.applyTo(request, systemPrompt, route);
 
-    private Resource getFileResource(File file) {
-        return new ByteArrayResource(fileIO.getFileData(file.getSavedFileName()));
+            return request.call()
+                    .entity(StructuredOutputs.TAGS);
+        });
     }
 
 }
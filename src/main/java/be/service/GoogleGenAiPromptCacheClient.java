@@ -0,0 +1,36 @@
+package be.service;
+
+import com.google.genai.Client;
+import com.google.genai.types.CachedContent;
+import com.google.genai.types.Content;
+import com.google.genai.types.CreateCachedContentConfig;
+import com.google.genai.types.Part;
+import java.time.*;
+import org.springframework.beans.factory.*;
+import org.springframework.stereotype.*;
+
+/**
+ * Gemini 의 cachedContents API 로 시스템 프롬프트를 등록한다. 채팅 모델과 같은 자동 구성된 {@link Client} 를 쓰며,
+ * 처음 등록할 때 찾는다 (채팅 모델을 끈 프로필에서는 빈이 없다).
+ */
+@Component
+public class GoogleGenAiPromptCacheClient implements PromptCacheClient {
+
+    private final ObjectProvider<Client> client;
+
+    public GoogleGenAiPromptCacheClient(ObjectProvider<Client> client) {
+        this.client = client;
+    }
+
+    @Override
+    public String create(String model, String systemPrompt, Duration ttl) {
+        CachedContent cached = client.getObject().caches.create(model, CreateCachedContentConfig.builder()
+                .systemInstruction(Content.fromParts(Part.fromText(systemPrompt)))
+                .ttl(ttl)
+                .displayName("drawer-system-prompt")
+                .build());
+
+        return cached.name()
+                .orElseThrow(() -> new IllegalStateException("Cached content has no name"));
+    }
+}
@@ -0,0 +1,68 @@
+package be.service;
+
+import java.nio.charset.*;
+import org.springframework.ai.chat.messages.*;
+import org.springframework.ai.chat.metadata.*;
+import org.springframework.ai.chat.model.*;
+import org.springframework.ai.chat.prompt.*;
+import reactor.core.publisher.*;
+
+/**
+ * 호출 전에 {@link ModelGovernor} 의 모델별 한도를 기다리는 ChatModel.
+ * <p>
+ * 입력 토큰은 텍스트 UTF-8 바이트의 1/4 과 첨부 미디어마다 media-tokens 로 추정하고, 응답의 사용량으로 정산한다.
+ */
+public class GovernedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final ModelGovernor governor;
+    private final int mediaTokens;
+
+    public GovernedChatModel(ChatModel delegate, ModelGovernor governor, int mediaTokens) {
+        this.delegate = delegate;
+        this.governor = governor;
+        this.mediaTokens = mediaTokens;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        ModelGovernor.Permit permit = governor.acquire(modelOf(prompt), estimateTokens(prompt));
+
+        ChatResponse response = delegate.call(prompt);
+        Usage usage = response == null ? null : response.getMetadata().getUsage();
+        governor.settle(permit, usage == null ? null : usage.getTotalTokens());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return delegate.stream(prompt);
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private String modelOf(Prompt prompt) {
+        if (prompt.getOptions() != null && prompt.getOptions().getModel() != null) {
+            return prompt.getOptions().getModel();
+        }
+        ChatOptions defaults = delegate.getDefaultOptions();
+        return defaults == null ? null : defaults.getModel();
+    }
+
+    private long estimateTokens(Prompt prompt) {
+        long tokens = 0;
+        for (Message message : prompt.getInstructions()) {
+            String text = message.getText();
+            if (text != null) {
+                tokens += (text.getBytes(StandardCharsets.UTF_8).length + 3) / 4;
+            }
+            if (message instanceof UserMessage user) {
+                tokens += (long) user.getMedia().size() * mediaTokens;
+            }
+        }
+        return Math.max(tokens, 1);
+    }
+}
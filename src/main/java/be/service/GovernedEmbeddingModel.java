@@ -0,0 +1,53 @@
+package be.service;
+
+import java.nio.charset.*;
+import org.springframework.ai.chat.metadata.*;
+import org.springframework.ai.document.*;
+import org.springframework.ai.embedding.*;
+
+/**
+ * 호출 전에 {@link ModelGovernor} 의 모델별 한도를 기다리는 EmbeddingModel.
+ * 벡터 저장소의 배치 임베딩도 배치마다 {@link #call(EmbeddingRequest)} 를 거친다.
+ */
+public class GovernedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final ModelGovernor governor;
+    private final String defaultModel;
+
+    public GovernedEmbeddingModel(EmbeddingModel delegate, ModelGovernor governor, String defaultModel) {
+        this.delegate = delegate;
+        this.governor = governor;
+        this.defaultModel = defaultModel;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        String model = request.getOptions() != null && request.getOptions().getModel() != null
+                ? request.getOptions().getModel()
+                : defaultModel;
+        long tokens = 0;
+        for (String text : request.getInstructions()) {
+            tokens += (text.getBytes(StandardCharsets.UTF_8).length + 3) / 4;
+        }
+        ModelGovernor.Permit permit = governor.acquire(model, Math.max(tokens, 1));
+
+        EmbeddingResponse response = delegate.call(request);
+        Usage usage = response == null ? null : response.getMetadata().getUsage();
+        governor.settle(permit, usage == null ? null : usage.getTotalTokens());
+        return response;
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        String text = document.getText();
+        long tokens = text == null ? 1 : Math.max((text.getBytes(StandardCharsets.UTF_8).length + 3) / 4, 1);
+        governor.acquire(defaultModel, tokens);
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,187 @@
+package be.service;
+
+import be.domain.exception.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.util.unit.*;
+
+/**
+ * 업로드 분석이 동시에 힙에 올려 두는 바이트를 max-bytes 안으로 묶는다.
+ * <p>
+ * 업로드 하나는 원본 크기의 held-copies 배만큼 잡는다고 본다 (분석 단계마다 파일 전체를 읽는다).
+ * 한도를 넘는 업로드는 도착 순서대로 max-wait 동안 기다리고, 그래도 자리가 나지 않거나 대기열이 max-queued 만큼 차 있으면
+ * Retry-After 와 함께 503 으로 거절한다. 한도보다 큰 업로드 하나는 다른 업로드가 모두 끝난 뒤 혼자 들어간다.
+ * <p>
+ * 현재 잡힌 바이트와 업로드 수는 drawer.ingest.admitted (budget=bytes|uploads), 대기 수는 drawer.ingest.queued,
+ * 거절 수는 drawer.ingest.rejected 로 노출한다.
+ */
+@Slf4j
+@Component
+public class IngestAdmission {
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int heldCopies;
+    private final long unknownSize;
+    private final Duration maxWait;
+    private final int maxQueued;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private final Deque<Object> queue = new ArrayDeque<>();
+    private long admittedBytes;
+    private int admittedUploads;
+
+    public IngestAdmission(
+            @Value("${ingest.admission.enabled}")
+            boolean enabled,
+            @Value("${ingest.admission.max-bytes}")
+            DataSize maxBytes,
+            @Value("${ingest.admission.held-copies}")
+            int heldCopies,
+            @Value("${common-secret.file.max-size}")
+            DataSize maxFileSize,
+            @Value("${ingest.admission.max-wait}")
+            Duration maxWait,
+            @Value("${ingest.admission.max-queued}")
+            int maxQueued,
+            @Value("${ingest.admission.retry-after}")
+            Duration retryAfter,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes.toBytes();
+        this.heldCopies = heldCopies;
+        this.unknownSize = maxFileSize.toBytes();
+        this.maxWait = maxWait;
+        this.maxQueued = maxQueued;
+        this.retryAfter = retryAfter;
+
+        Gauge.builder("drawer.ingest.admitted", this, admission -> admission.snapshot(true))
+                .tag("budget", "bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("drawer.ingest.admitted", this, admission -> admission.snapshot(false))
+                .tag("budget", "uploads")
+                .register(meterRegistry);
+        Gauge.builder("drawer.ingest.queued", this, admission -> admission.queued())
+                .register(meterRegistry);
+        this.rejected = Counter.builder("drawer.ingest.rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 자리가 날 때까지 기다린다. 돌려받은 Ticket 은 분석과 저장이 끝난 뒤 닫아야 한다.
+     *
+     * @param size 원본 크기. 모르면 음수나 null 이며, 최대 업로드 크기로 가정한다
+     * @throws IngestOverloadedException 기다려도 자리가 나지 않을 때
+     */
+    public Ticket admit(Long size) {
+        if (!enabled) {
+            return new Ticket(0);
+        }
+
+        long bytes = (size == null || size < 0 ? unknownSize : size) * heldCopies;
+        Object waiter = new Object();
+        lock.lock();
+        try {
+            boolean mustWait = !queue.isEmpty() || !fits(bytes);
+            if (mustWait && queue.size() >= maxQueued) {
+                throw reject(bytes);
+            }
+
+            queue.addLast(waiter);
+            long remaining = maxWait.toNanos();
+            try {
+                while (queue.peekFirst() != waiter || !fits(bytes)) {
+                    if (remaining <= 0) {
+                        throw reject(bytes);
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(bytes);
+            } finally {
+                queue.remove(waiter);
+                // 맨 앞이 빠졌으니 다음 대기자가 다시 확인한다
+                released.signalAll();
+            }
+
+            admittedBytes += bytes;
+            admittedUploads++;
+            return new Ticket(bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(long bytes) {
+        return admittedUploads == 0 || admittedBytes + bytes <= maxBytes;
+    }
+
+    private IngestOverloadedException reject(long bytes) {
+        log.info("Rejecting upload holding {} bytes: {} bytes in {} uploads admitted, {} queued",
+                bytes, admittedBytes, admittedUploads, queue.size());
+        rejected.increment();
+        return new IngestOverloadedException(retryAfter);
+    }
+
+    private void release(long bytes) {
+        lock.lock();
+        try {
+            admittedBytes -= bytes;
+            admittedUploads--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double snapshot(boolean bytes) {
+        lock.lock();
+        try {
+            return bytes ? admittedBytes : admittedUploads;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Ticket implements AutoCloseable {
+
+        private final long bytes;
+        private boolean closed;
+
+        private Ticket(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed || !enabled) {
+                return;
+            }
+            closed = true;
+            release(bytes);
+        }
+    }
+}
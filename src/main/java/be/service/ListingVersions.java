@@ -0,0 +1,78 @@
+package be.service;
+
+import be.domain.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.event.*;
+
+/**
+ * 목록 범위 (전체, 카테고리별, 파일 타입별) 마다 변경 버전을 두어, DB 조회 없이 ETag 를 만든다.
+ * <p>
+ * 버전은 트랜잭션 커밋 이후에 올린다. 커밋 전에 올리면 이전 내용을 새 버전으로 응답할 수 있기 때문이다.
+ * 호출 측은 목록을 조회하기 전에 ETag 를 먼저 구해야 한다. 그래야 조회 도중의 변경이 다음 요청에서 드러난다.
+ * <p>
+ * 버전은 인스턴스 메모리에만 있으며, 재시작하면 boot epoch 가 바뀌어 이전 ETag 는 모두 무효가 된다.
+ * 여러 인스턴스가 쓰기를 나눠 받는 구성에서는 다른 인스턴스의 변경을 알지 못한다.
+ */
+@Component
+public class ListingVersions {
+
+    private final String bootEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLong search = new AtomicLong();
+    private final Map<Category, AtomicLong> byCategory = new EnumMap<>(Category.class);
+    private final Map<FileType, AtomicLong> byFileType = new EnumMap<>(FileType.class);
+
+    public ListingVersions() {
+        for (Category category : Category.values()) {
+            byCategory.put(category, new AtomicLong());
+        }
+        for (FileType fileType : FileType.values()) {
+            byFileType.put(fileType, new AtomicLong());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileChanged(FileChangedEvent event) {
+        global.incrementAndGet();
+        search.incrementAndGet();
+        for (Category category : event.categories()) {
+            byCategory.get(category).incrementAndGet();
+        }
+        if (event.fileType() != null) {
+            byFileType.get(event.fileType()).incrementAndGet();
+        }
+    }
+
+    /**
+     * 벡터 저장소의 내용이 바뀌었을 때. 색인은 파일 저장 트랜잭션보다 늦게 반영된다.
+     */
+    public void onSearchIndexChanged() {
+        search.incrementAndGet();
+    }
+
+    /**
+     * category, fileType 조건의 목록 ETag. 둘 다 주어지면 두 버전 중 하나만 바뀌어도 달라진다.
+     */
+    public String listingETag(Category category, FileType fileType) {
+        StringBuilder builder = new StringBuilder(bootEpoch);
+        if (category == null && fileType == null) {
+            builder.append("-g").append(global.get());
+        }
+        if (category != null) {
+            builder.append("-c").append(category.ordinal()).append('.').append(byCategory.get(category).get());
+        }
+        if (fileType != null) {
+            builder.append("-t").append(fileType.ordinal()).append('.').append(byFileType.get(fileType).get());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 검색 결과는 어떤 파일이 추가되거나 색인돼도 바뀔 수 있으므로 검색 버전과 검색 조건으로 만든다.
+     */
+    public String searchETag(Object... criteria) {
+        return bootEpoch + "-s" + search.get() + "-" + Integer.toHexString(Arrays.hashCode(criteria));
+    }
+}
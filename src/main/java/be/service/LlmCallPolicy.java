@@ -0,0 +1,186 @@
+package be.service;
+
+import be.util.*;
+import be.util.metric.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 파일 분석 LLM 호출에 단계별 deadline 과 hedged request 를 적용한다.
+ * <p>
+ * 응답이 그 단계 최근 지연 시간의 hedge.percentile 백분위를 넘도록 오지 않으면 같은 요청을 한 번 더 보내고, 먼저 성공한 응답을 쓴다.
+ * 표본이 hedge.min-samples 개 미만이면 hedge 하지 않는다. 두 요청 모두 실패하거나 deadline 을 넘기면 반환한 future 는
+ * 예외로 완료된다.
+ * <p>
+ * 반환한 future 가 어떻게든 완료되면 남은 요청의 스레드를 interrupt 한다. {@link ModelGovernor} 대기열에서 기다리던 요청은
+ * 한도를 쓰지 않고 빠지고, 진행 중인 요청도 읽지 않을 응답을 더 기다리지 않는다.
+ */
+@Component
+public class LlmCallPolicy {
+
+    private final Map<Stage, Duration> deadlines = new EnumMap<>(Stage.class);
+    private final Duration defaultDeadline;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final Duration hedgeMinDelay;
+    private final int hedgeMinSamples;
+    private final int windowSize;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Stage, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LlmCallPolicy(
+            @Value("${llm.deadline.default}")
+            Duration defaultDeadline,
+            @Value("${llm.deadline.summarize}")
+            Duration summarizeDeadline,
+            @Value("${llm.deadline.category}")
+            Duration categoryDeadline,
+            @Value("${llm.deadline.tag}")
+            Duration tagDeadline,
+            @Value("${llm.hedge.enabled}")
+            boolean hedgeEnabled,
+            @Value("${llm.hedge.percentile}")
+            double hedgePercentile,
+            @Value("${llm.hedge.min-delay}")
+            Duration hedgeMinDelay,
+            @Value("${llm.hedge.min-samples}")
+            int hedgeMinSamples,
+            @Value("${llm.hedge.window-size}")
+            int windowSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.defaultDeadline = defaultDeadline;
+        this.deadlines.put(Stage.SUMMARIZE, summarizeDeadline);
+        this.deadlines.put(Stage.EXTRACT_CATEGORY, categoryDeadline);
+        this.deadlines.put(Stage.EXTRACT_TAG, tagDeadline);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.windowSize = windowSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    private void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 현재 스레드의 MDC 를 넘겨 호출을 시작한다.
+     *
+     * @return deadline 을 넘기면 {@link TimeoutException} 으로 완료되는 future
+     */
+    public <T> CompletableFuture<T> call(Stage stage, Supplier<T> call) {
+        Supplier<T> task = MdcContext.wrap(call);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Attempts attempts = new Attempts();
+        result.whenComplete((value, error) -> attempts.cancelAll());
+
+        attempt(stage, task, result, attempts, false);
+
+        hedgeDelay(stage).ifPresent(delay -> CompletableFuture
+                .delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor)
+                .execute(() -> {
+                    if (result.isDone()) {
+                        return;
+                    }
+                    counter("drawer.llm.hedge", stage, "sent").increment();
+                    attempt(stage, task, result, attempts, true);
+                }));
+
+        Duration deadline = deadlines.getOrDefault(stage, defaultDeadline);
+        return result
+                .orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        counter("drawer.llm.deadline.exceeded", stage, null).increment();
+                    }
+                });
+    }
+
+    private <T> void attempt(
+            Stage stage, Supplier<T> task, CompletableFuture<T> result, Attempts attempts, boolean hedge
+    ) {
+        long start = System.nanoTime();
+        attempts.started();
+        attempts.add(executor.submit(() -> {
+            T value;
+            try {
+                value = task.get();
+            } catch (RuntimeException e) {
+                if (attempts.failed()) {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            window(stage).record(Duration.ofNanos(System.nanoTime() - start));
+            if (result.complete(value) && hedge) {
+                counter("drawer.llm.hedge", stage, "won").increment();
+            }
+        }));
+    }
+
+    private Optional<Duration> hedgeDelay(Stage stage) {
+        if (!hedgeEnabled) {
+            return Optional.empty();
+        }
+        return window(stage).percentile(hedgePercentile, hedgeMinSamples)
+                .map(delay -> delay.compareTo(hedgeMinDelay) < 0 ? hedgeMinDelay : delay);
+    }
+
+    private LatencyWindow window(Stage stage) {
+        return latencies.computeIfAbsent(stage, key -> new LatencyWindow(windowSize));
+    }
+
+    private Counter counter(String name, Stage stage, String result) {
+        Counter.Builder builder = Counter.builder(name).tag("stage", stage.getTag());
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    /**
+     * 한 호출의 요청들. 결과가 정해진 뒤에 추가된 요청은 바로 취소한다.
+     */
+    private static final class Attempts {
+
+        private final List<Future<?>> futures = new ArrayList<>();
+        private int inFlight;
+        private boolean cancelled;
+
+        synchronized void started() {
+            inFlight++;
+        }
+
+        /**
+         * @return 마지막으로 남은 요청이 실패했으면 true
+         */
+        synchronized boolean failed() {
+            return --inFlight == 0;
+        }
+
+        synchronized void add(Future<?> future) {
+            if (cancelled) {
+                future.cancel(true);
+            } else {
+                futures.add(future);
+            }
+        }
+
+        synchronized void cancelAll() {
+            cancelled = true;
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+}
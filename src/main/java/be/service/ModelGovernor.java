@@ -0,0 +1,202 @@
+package be.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import lombok.extern.slf4j.*;
+import org.springframework.boot.context.properties.bind.*;
+import org.springframework.core.env.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 모델별 분당 요청 수 (RPM) 와 분당 토큰 수 (TPM) 한도를 프로세스 전체에서 지킨다.
+ * <p>
+ * 모델마다 두 개의 토큰 버킷을 두고, 한도를 넘는 호출은 실패시키지 않고 도착 순서대로 기다리게 한다.
+ * 대기열은 공정 모드 {@link ReentrantLock} 이며, 맨 앞 호출자만 버킷이 찰 때까지 잠들어 뒤 호출자가 앞지르지 못한다.
+ * <p>
+ * 호출 전에는 토큰 수를 추정해 차감하고, 응답의 실제 사용량으로 차이를 정산한다.
+ * 대기 시간은 drawer.llm.governor.wait, 남은 한도는 drawer.llm.governor.available (budget=requests|tokens),
+ * 대기 중인 호출 수는 drawer.llm.governor.queued 로 노출한다.
+ */
+@Slf4j
+@Component
+public class ModelGovernor {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final boolean enabled;
+    private final Budget defaultBudget;
+    private final Map<String, Budget> budgets;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * llm.governor.* 설정으로 만든다. 모델 이름에 '.' 이 있으면 yaml 키를 "[gemini-2.5-flash]" 처럼 감싸야 한다.
+     */
+    public ModelGovernor(Environment env, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(env);
+        this.enabled = binder.bind("llm.governor.enabled", Boolean.class).orElse(true);
+        this.defaultBudget = binder.bind("llm.governor.default", Budget.class).get();
+        this.budgets = Map.copyOf(
+                binder.bind("llm.governor.models", Bindable.mapOf(String.class, Budget.class)).orElse(Map.of())
+        );
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 한도가 날 때까지 기다린 뒤 추정 토큰을 차감한다. 결과는 {@link #settle(Permit, Integer)} 로 정산해야 한다.
+     * 기다리는 동안 interrupt 되면 (deadline 을 넘겨 {@link LlmCallPolicy} 가 취소하면) 한도를 쓰지 않고 대기열에서 빠진다.
+     */
+    public Permit acquire(String model, long estimatedTokens) {
+        if (!enabled) {
+            return new Permit(null, 0);
+        }
+
+        Bucket bucket = bucket(model);
+        long start = System.nanoTime();
+        try {
+            bucket.take(estimatedTokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for model budget");
+        }
+        bucket.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit(bucket, estimatedTokens);
+    }
+
+    /**
+     * @param actualTokens 응답이 보고한 사용량. 없으면 추정치를 그대로 둔다
+     */
+    public void settle(Permit permit, Integer actualTokens) {
+        if (permit.bucket() != null && actualTokens != null) {
+            permit.bucket().refund(permit.estimatedTokens() - actualTokens);
+        }
+    }
+
+    private Bucket bucket(String model) {
+        String key = model == null ? "unknown" : model;
+        return buckets.computeIfAbsent(key, this::newBucket);
+    }
+
+    private Bucket newBucket(String model) {
+        Budget budget = budgets.getOrDefault(model, defaultBudget);
+        log.info("Model {} limited to {} requests, {} tokens per minute",
+                model, budget.requestsPerMinute(), budget.tokensPerMinute());
+
+        Bucket bucket = new Bucket(budget, Timer.builder("drawer.llm.governor.wait")
+                .tag("model", model)
+                .register(meterRegistry));
+        Gauge.builder("drawer.llm.governor.available", bucket, Bucket::availableRequests)
+                .tag("model", model)
+                .tag("budget", "requests")
+                .register(meterRegistry);
+        Gauge.builder("drawer.llm.governor.available", bucket, Bucket::availableTokens)
+                .tag("model", model)
+                .tag("budget", "tokens")
+                .register(meterRegistry);
+        Gauge.builder("drawer.llm.governor.queued", bucket.queue, ReentrantLock::getQueueLength)
+                .tag("model", model)
+                .register(meterRegistry);
+        return bucket;
+    }
+
+    public record Budget(int requestsPerMinute, long tokensPerMinute) {
+
+    }
+
+    public record Permit(Bucket bucket, long estimatedTokens) {
+
+    }
+
+    /**
+     * 한도만큼 채워진 상태에서 시작해 1분에 한도만큼 다시 찬다. 정산으로 토큰이 음수가 되면 그만큼 다음 호출이 기다린다.
+     */
+    static final class Bucket {
+
+        private final double requestCapacity;
+        private final double tokenCapacity;
+        private final ReentrantLock queue = new ReentrantLock(true);
+        private final Timer waitTimer;
+        private final LongSupplier nanoTime;
+
+        private double requests;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(Budget budget, Timer waitTimer) {
+            this(budget, waitTimer, System::nanoTime);
+        }
+
+        Bucket(Budget budget, Timer waitTimer, LongSupplier nanoTime) {
+            this.requestCapacity = budget.requestsPerMinute();
+            this.tokenCapacity = budget.tokensPerMinute();
+            this.requests = requestCapacity;
+            this.tokens = tokenCapacity;
+            this.waitTimer = waitTimer;
+            this.nanoTime = nanoTime;
+            this.refilledAt = nanoTime.getAsLong();
+        }
+
+        void take(long estimatedTokens) throws InterruptedException {
+            // 한 번에 한도보다 많은 토큰이 필요한 호출은 버킷이 가득 찰 때까지만 기다린다
+            double needed = Math.min(estimatedTokens, tokenCapacity);
+
+            queue.lockInterruptibly();
+            try {
+                while (true) {
+                    long waitNanos;
+                    synchronized (this) {
+                        refill();
+                        if (requests >= 1 && tokens >= needed) {
+                            requests -= 1;
+                            tokens -= estimatedTokens;
+                            return;
+                        }
+                        waitNanos = Math.max(
+                                nanosUntil(1 - requests, requestCapacity),
+                                nanosUntil(needed - tokens, tokenCapacity)
+                        );
+                    }
+                    TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000));
+                }
+            } finally {
+                queue.unlock();
+            }
+        }
+
+        synchronized void refund(long tokens) {
+            refill();
+            this.tokens = Math.min(tokenCapacity, this.tokens + tokens);
+        }
+
+        synchronized double availableRequests() {
+            refill();
+            return requests;
+        }
+
+        synchronized double availableTokens() {
+            refill();
+            return tokens;
+        }
+
+        private void refill() {
+            long now = nanoTime.getAsLong();
+            double minutes = (double) (now - refilledAt) / NANOS_PER_MINUTE;
+            requests = Math.min(requestCapacity, requests + minutes * requestCapacity);
+            tokens = Math.min(tokenCapacity, tokens + minutes * tokenCapacity);
+            refilledAt = now;
+        }
+
+        private static long nanosUntil(double missing, double perMinute) {
+            if (missing <= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(missing / perMinute * NANOS_PER_MINUTE);
+        }
+    }
+}
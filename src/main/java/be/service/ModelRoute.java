@@ -0,0 +1,63 @@
+package be.service;
+
+import be.domain.*;
+import be.util.metric.*;
+import java.util.*;
+import org.springframework.util.*;
+import org.springframework.util.unit.*;
+
+/**
+ * 라우팅 표의 한 줄. 조건을 모두 만족하는 요청을 model 과 생성 옵션으로 보낸다. 비어 있는 조건은 검사하지 않는다.
+ *
+ * @param stages        적용할 분석 단계
+ * @param fileTypes     적용할 파일 타입
+ * @param mediaTypes    적용할 미디어 타입. text/* 처럼 와일드카드를 쓸 수 있다
+ * @param maxSize       원본 크기 상한. 크기를 모르는 파일에는 적용하지 않는다
+ * @param fallbackModel model 호출이 실패하면 한 번 더 보낼 모델
+ */
+public record ModelRoute(
+        String name,
+        List<Stage> stages,
+        List<FileType> fileTypes,
+        List<String> mediaTypes,
+        DataSize maxSize,
+        String model,
+        Double temperature,
+        Integer maxOutputTokens,
+        String fallbackModel
+) {
+
+    public ModelRoute {
+        stages = stages == null ? List.of() : List.copyOf(stages);
+        fileTypes = fileTypes == null ? List.of() : List.copyOf(fileTypes);
+        mediaTypes = mediaTypes == null ? List.of() : List.copyOf(mediaTypes);
+    }
+
+    public static ModelRoute defaultRoute(String model) {
+        return new ModelRoute("default", null, null, null, null, model, null, null, null);
+    }
+
+    public boolean matches(Stage stage, File file) {
+        if (!stages.isEmpty() && !stages.contains(stage)) {
+            return false;
+        }
+        if (!fileTypes.isEmpty() && !fileTypes.contains(file.getFileType())) {
+            return false;
+        }
+        if (!mediaTypes.isEmpty() && mediaTypes.stream()
+                .map(MimeType::valueOf)
+                .noneMatch(type -> type.includes(file.getFileMediaType()))) {
+            return false;
+        }
+        if (maxSize != null && (file.getFileSize() == null || file.getFileSize() > maxSize.toBytes())) {
+            return false;
+        }
+        return true;
+    }
+
+    public ModelRoute withModel(String model) {
+        return new ModelRoute(
+                name, stages, fileTypes, mediaTypes, maxSize, model, temperature, maxOutputTokens, null
+        );
+    }
+}
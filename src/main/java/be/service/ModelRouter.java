@@ -0,0 +1,98 @@
+package be.service;
+
+import be.domain.*;
+import be.domain.exception.*;
+import be.util.metric.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.context.properties.bind.*;
+import org.springframework.core.env.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 분석 단계, 파일 타입, 미디어 타입, 크기로 llm.routing.routes 에서 처음 맞는 경로를 골라 호출한다.
+ * 맞는 경로가 없으면 기본 채팅 모델을 그대로 쓴다.
+ * <p>
+ * 경로별 지연 시간은 drawer.llm.route (route, stage, model, outcome) 로, fallback-model 로 다시 보낸 횟수는
+ * drawer.llm.route.fallback 으로 기록한다. 회로 차단으로 거부된 호출은 같은 제공자이므로 다시 보내지 않는다.
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+
+    private final List<ModelRoute> routes;
+    private final ModelRoute defaultRoute;
+    private final MeterRegistry meterRegistry;
+
+    public ModelRouter(
+            Environment env,
+            @Value("${spring.ai.google.genai.chat.options.model}")
+            String defaultModel,
+            MeterRegistry meterRegistry
+    ) {
+        this.routes = Binder.get(env)
+                .bind("llm.routing.routes", Bindable.listOf(ModelRoute.class))
+                .orElse(List.of());
+        this.defaultRoute = ModelRoute.defaultRoute(defaultModel);
+        this.meterRegistry = meterRegistry;
+
+        log.info("Model routes: {}", routes.stream().map(ModelRoute::name).toList());
+    }
+
+    public ModelRoute route(Stage stage, File file) {
+        for (ModelRoute route : routes) {
+            if (route.matches(stage, file)) {
+                return route;
+            }
+        }
+        return defaultRoute;
+    }
+
+    /**
+     * 경로를 골라 call 을 실행하고, 실패하면 경로의 fallback-model 로 한 번 더 실행한다.
+     */
+    public <T> T call(Stage stage, File file, Function<ModelRoute, T> call) {
+        ModelRoute route = route(stage, file);
+        try {
+            return timed(stage, route, call);
+        } catch (LlmUnavailableException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (route.fallbackModel() == null) {
+                throw e;
+            }
+            log.warn("Route {} ({}) failed for {}, falling back to {}: {}",
+                    route.name(), route.model(), stage, route.fallbackModel(), e.toString());
+            Counter.builder("drawer.llm.route.fallback")
+                    .tag("route", route.name())
+                    .tag("stage", stage.getTag())
+                    .register(meterRegistry)
+                    .increment();
+            return timed(stage, route.withModel(route.fallbackModel()), call);
+        }
+    }
+
+    private <T> T timed(Stage stage, ModelRoute route, Function<ModelRoute, T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.apply(route);
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder("drawer.llm.route")
+                    .tag("route", route.name())
+                    .tag("stage", stage.getTag())
+                    .tag("model", String.valueOf(route.model()))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
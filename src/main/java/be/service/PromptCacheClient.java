@@ -0,0 +1,14 @@
+package be.service;
+
+import java.time.*;
+
+/**
+ * 정적인 시스템 프롬프트를 모델 제공자의 컨텍스트 캐시에 등록한다.
+ */
+public interface PromptCacheClient {
+
+    /**
+     * @return 요청에서 참조할 캐시 이름
+     */
+    String create(String model, String systemPrompt, Duration ttl);
+}
@@ -0,0 +1,247 @@
+package be.service;
+
+import be.domain.*;
+import be.domain.ReindexJob.*;
+import be.domain.exception.*;
+import be.repository.*;
+import be.util.metric.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import lombok.extern.slf4j.*;
+import org.springframework.ai.document.*;
+import org.springframework.ai.vectorstore.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.context.event.*;
+import org.springframework.context.event.*;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * MySQL 의 모든 파일을 다시 임베딩해 벡터 저장소에 기록한다.
+ * <p>
+ * 파일은 id 순서의 keyset 페이지로 읽고, 한 페이지를 parallelism 개의 묶음으로 나눠 동시에 문서를 만들고 기록한다.
+ * 페이지가 끝날 때마다 마지막 id 를 체크포인트로 남기므로, 중단되면 그 다음 id 부터 이어서 진행한다.
+ * 문서 id 는 파일 id 로 정해지므로 같은 파일을 두 번 기록해도 덮어쓸 뿐이다.
+ * <p>
+ * shadow 모드에서는 새 컬렉션에 기록하고, 그동안 새로 색인되는 파일은 {@link VectorStoreRouter} 가 양쪽에 기록한다.
+ * 완료된 뒤 {@link #switchTo(Long)} 로 검색을 전환한다.
+ */
+@Slf4j
+@Component
+public class ReindexService {
+
+    private final ReindexJobRepository reindexJobRepository;
+    private final FileRepository fileRepository;
+    private final FileVectorRepository fileVectorRepository;
+    private final VectorStoreRouter vectorStoreRouter;
+    private final ListingVersions listingVersions;
+    private final StageMetrics stageMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    public ReindexService(
+            ReindexJobRepository reindexJobRepository,
+            FileRepository fileRepository,
+            FileVectorRepository fileVectorRepository,
+            VectorStoreRouter vectorStoreRouter,
+            ListingVersions listingVersions,
+            StageMetrics stageMetrics,
+            TransactionTemplate transactionTemplate,
+            @Value("${vector-index.reindex.page-size}")
+            int pageSize,
+            @Value("${vector-index.reindex.parallelism}")
+            int parallelism,
+            @Value("${vector-index.reindex.max-attempts}")
+            int maxAttempts,
+            @Value("${vector-index.reindex.retry-backoff}")
+            Duration retryBackoff
+    ) {
+        this.reindexJobRepository = reindexJobRepository;
+        this.fileRepository = fileRepository;
+        this.fileVectorRepository = fileVectorRepository;
+        this.vectorStoreRouter = vectorStoreRouter;
+        this.listingVersions = listingVersions;
+        this.stageMetrics = stageMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * 재시작 전에 진행 중이던 작업을 체크포인트부터 이어서 진행한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        reindexJobRepository.findFirstByStatusOrderByIdDesc(Status.RUNNING)
+                .ifPresent(job -> {
+                    log.info("Resuming reindex job {} after file id {}", job.getId(), job.getLastFileId());
+                    launch(job.getId());
+                });
+    }
+
+    public synchronized ReindexJob start(boolean shadow) {
+        if (reindexJobRepository.findFirstByStatusOrderByIdDesc(Status.RUNNING).isPresent()) {
+            throw new ReindexConflictException("이미 진행 중인 재색인 작업이 있습니다.");
+        }
+        if (shadow && !vectorStoreRouter.supportsShadow()) {
+            throw new ReindexConflictException("현재 벡터 저장소는 별도 컬렉션을 지원하지 않습니다.");
+        }
+
+        String collection = shadow
+                ? "File" + System.currentTimeMillis()
+                : vectorStoreRouter.activeCollection();
+
+        ReindexJob job = reindexJobRepository.save(ReindexJob.builder()
+                .targetCollection(collection)
+                .shadow(shadow)
+                .build());
+
+        if (shadow) {
+            vectorStoreRouter.startShadow(collection);
+        }
+        launch(job.getId());
+        return job;
+    }
+
+    public synchronized ReindexJob resume(Long jobId) {
+        ReindexJob job = getJob(jobId);
+        if (job.getStatus() != Status.FAILED) {
+            throw new ReindexConflictException("실패한 작업만 다시 시작할 수 있습니다.");
+        }
+        if (reindexJobRepository.findFirstByStatusOrderByIdDesc(Status.RUNNING).isPresent()) {
+            throw new ReindexConflictException("이미 진행 중인 재색인 작업이 있습니다.");
+        }
+
+        job.resume();
+        ReindexJob saved = reindexJobRepository.save(job);
+        if (saved.isShadow()) {
+            vectorStoreRouter.startShadow(saved.getTargetCollection());
+        }
+        launch(saved.getId());
+        return saved;
+    }
+
+    /**
+     * 완료된 shadow 작업의 컬렉션으로 검색을 전환한다.
+     */
+    public synchronized ReindexJob switchTo(Long jobId) {
+        ReindexJob job = getJob(jobId);
+        if (!job.isShadow() || job.getStatus() != Status.COMPLETED) {
+            throw new ReindexConflictException("완료된 shadow 재색인 작업만 전환할 수 있습니다.");
+        }
+
+        job.markSwitched();
+        ReindexJob saved = reindexJobRepository.save(job);
+        vectorStoreRouter.switchTo(saved.getTargetCollection());
+        listingVersions.onSearchIndexChanged();
+        return saved;
+    }
+
+    public ReindexJob getJob(Long jobId) {
+        return reindexJobRepository.findById(jobId)
+                .orElseThrow(ReindexJobNotFoundException::new);
+    }
+
+    public Optional<ReindexJob> getLatestJob() {
+        return reindexJobRepository.findFirstByOrderByIdDesc();
+    }
+
+    private void launch(Long jobId) {
+        Thread.ofVirtual()
+                .name("reindex-" + jobId)
+                .start(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        ReindexJob job = getJob(jobId);
+        VectorStore target = vectorStoreRouter.store(job.getTargetCollection());
+        long afterId = job.getLastFileId();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                long from = afterId;
+                List<Long> ids = stageMetrics.record(Stage.DB_READ, null,
+                        () -> fileRepository.findIdsAfter(from, PageRequest.of(0, pageSize)));
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                List<Future<?>> chunks = new ArrayList<>();
+                for (List<Long> chunk : partition(ids, parallelism)) {
+                    chunks.add(executor.submit(() -> indexChunk(target, chunk)));
+                }
+                for (Future<?> chunk : chunks) {
+                    chunk.get();
+                }
+
+                afterId = ids.getLast();
+                long checkpoint = afterId;
+                transactionTemplate.executeWithoutResult(status -> reindexJobRepository.findById(jobId)
+                        .ifPresent(saved -> saved.checkpoint(checkpoint, ids.size())));
+            }
+
+            transactionTemplate.executeWithoutResult(status -> reindexJobRepository.findById(jobId)
+                    .ifPresent(ReindexJob::complete));
+            listingVersions.onSearchIndexChanged();
+            log.info("Reindex job {} completed into {}", jobId, job.getTargetCollection());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markFailed(jobId, e);
+        } catch (ExecutionException | RuntimeException e) {
+            markFailed(jobId, e);
+        }
+    }
+
+    private void indexChunk(VectorStore target, List<Long> fileIds) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<Document> documents = transactionTemplate.execute(status ->
+                        fileVectorRepository.toDocuments(fileRepository.findAllById(fileIds)));
+                if (documents != null && !documents.isEmpty()) {
+                    stageMetrics.record(Stage.VECTOR_ADD, null, () -> target.add(documents));
+                }
+                return;
+
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("Reindex chunk failed (attempt {}/{}), retrying", attempt, maxAttempts, e);
+                sleep(retryBackoff.multipliedBy(1L << (attempt - 1)));
+            }
+        }
+    }
+
+    private void markFailed(Long jobId, Exception e) {
+        log.error("Reindex job {} failed, resume from its checkpoint", jobId, e);
+        vectorStoreRouter.stopShadow();
+        transactionTemplate.executeWithoutResult(status -> reindexJobRepository.findById(jobId)
+                .ifPresent(job -> job.fail(e.toString())));
+    }
+
+    private static List<List<Long>> partition(List<Long> ids, int parts) {
+        int size = Math.max(1, (ids.size() + parts - 1) / parts);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += size) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + size)));
+        }
+        return chunks;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
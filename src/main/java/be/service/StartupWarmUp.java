@@ -0,0 +1,235 @@
+package be.service;
+
+import be.domain.*;
+import be.repository.*;
+import be.util.api.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.*;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.*;
+import org.springframework.boot.actuate.health.*;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * 첫 요청이 떠안던 초기화 비용을 시작 단계에서 미리 치른다.
+ * <p>
+ * 커넥션 풀을 채우고, 대표 쿼리와 응답 직렬화를 한 번씩 실행하고, 임베딩과 벡터 검색, 추천 LLM 호출로 외부 연결을 열어 두며,
+ * 추천 카테고리와 파일 타입별 목록 캐시를 채운다.
+ * ApplicationRunner 는 readiness 가 ACCEPTING_TRAFFIC 으로 바뀌기 전에 실행되므로, 끝날 때까지 readiness probe 는 준비되지 않음으로 응답한다.
+ * 각 단계는 step-timeout 안에서 실행되며, 시간을 넘기면 중단시킨다. 실패해도 나머지 단계는 계속 진행한다. 단계별 소요 시간은 로그, 메트릭, health 상세로 남긴다.
+ */
+@Slf4j
+@Component
+public class StartupWarmUp implements ApplicationRunner, HealthIndicator {
+
+    private final DataSource dataSource;
+    private final FileRepository fileRepository;
+    private final TagRepository tagRepository;
+    private final FileVectorRepository fileVectorRepository;
+    private final FileService fileService;
+    private final CategoryRecommender categoryRecommender;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration stepTimeout;
+    private final int sampleSize;
+
+    private final List<StepResult> results = new CopyOnWriteArrayList<>();
+    private volatile boolean finished;
+
+    public StartupWarmUp(
+            DataSource dataSource,
+            FileRepository fileRepository,
+            TagRepository tagRepository,
+            FileVectorRepository fileVectorRepository,
+            FileService fileService,
+            CategoryRecommender categoryRecommender,
+            ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${warm-up.enabled}")
+            boolean enabled,
+            @Value("${warm-up.step-timeout}")
+            Duration stepTimeout,
+            @Value("${warm-up.sample-size}")
+            int sampleSize
+    ) {
+        this.dataSource = dataSource;
+        this.fileRepository = fileRepository;
+        this.tagRepository = tagRepository;
+        this.fileVectorRepository = fileVectorRepository;
+        this.fileService = fileService;
+        this.categoryRecommender = categoryRecommender;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.stepTimeout = stepTimeout;
+        this.sampleSize = sampleSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            step(executor, "db-pool", this::openPoolConnections);
+
+            List<File> sample = step(executor, "jpa-queries", this::runRepresentativeQueries);
+            List<Category> recommendations = step(executor, "recommendations", categoryRecommender::refreshRecommendations);
+
+            step(executor, "serialization", () -> serialize(sample, recommendations));
+            step(executor, "vector-search", () ->
+                    fileVectorRepository.searchSimilarFiles("warm-up", 1, 0.0, null, null).size());
+            step(executor, "listing-cache", () ->
+                    fileService.preloadListings(recommendations == null ? List.of() : recommendations));
+        } finally {
+            // close() 는 시간을 넘긴 단계까지 기다리므로 쓰지 않는다
+            executor.shutdownNow();
+            finished = true;
+        }
+
+        log.info("Warm-up finished in {} ms: {}", Duration.ofNanos(System.nanoTime() - start).toMillis(), results);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = finished ? Health.up() : Health.outOfService();
+        for (StepResult result : results) {
+            builder.withDetail(result.name(), result.toDetail());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return 단계의 결과. 실패하거나 시간을 넘기면 null
+     */
+    private <T> T step(ExecutorService executor, String name, Callable<T> work) {
+        long start = System.nanoTime();
+        Future<T> future = executor.submit(work);
+        String outcome = "success";
+        String error = null;
+        T value = null;
+
+        try {
+            value = future.get(stepTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 멈춘 외부 호출이 시작 단계를 붙잡지 않도록 중단시킨다
+            future.cancel(true);
+            outcome = "timeout";
+        } catch (ExecutionException e) {
+            outcome = "error";
+            error = e.getCause().toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Timer.builder("drawer.warmup.step")
+                .tag("step", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed);
+        results.add(new StepResult(name, elapsed.toMillis(), outcome, error));
+
+        if (error != null) {
+            log.warn("Warm-up step {} failed after {} ms: {}", name, elapsed.toMillis(), error);
+        } else {
+            log.info("Warm-up step {} {} in {} ms", name, outcome, elapsed.toMillis());
+        }
+        return value;
+    }
+
+    /**
+     * 최소 유휴 커넥션 수만큼 동시에 빌려 물리 커넥션을 모두 만든 뒤 반납한다.
+     */
+    private int openPoolConnections() throws SQLException {
+        int size = dataSource.isWrapperFor(HikariDataSource.class)
+                ? Math.max(1, dataSource.unwrap(HikariDataSource.class).getMinimumIdle())
+                : 1;
+
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 목록, 단건, 삭제 필터, 통계 쿼리를 한 번씩 실행해 쿼리 계획과 엔티티 로딩 경로를 준비한다.
+     */
+    private List<File> runRepresentativeQueries() {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = fileRepository.findIdsAfter(0L, PageRequest.of(0, sampleSize));
+            List<File> files = fileRepository.findAllById(ids);
+            for (File file : files) {
+                Hibernate.initialize(file.getCategories());
+                Hibernate.initialize(file.getTags());
+            }
+
+            fileRepository.findLiveIds(ids);
+            if (!ids.isEmpty()) {
+                fileRepository.findByIdAndDeletedAtIsNull(ids.getFirst());
+            }
+            fileRepository.sumStorageUsageByMediaType();
+            tagRepository.count();
+            return files;
+        });
+    }
+
+    /**
+     * 응답 본문과 같은 형태로 직렬화해 Jackson serializer 를 미리 만든다.
+     */
+    private int serialize(List<File> files, List<Category> categories) throws Exception {
+        int bytes = 0;
+        bytes += objectMapper.writeValueAsBytes(ApiResponse.success(files == null ? List.of() : files)).length;
+        bytes += objectMapper.writeValueAsBytes(ApiResponse.success(categories == null ? List.of() : categories)).length;
+        bytes += objectMapper.writeValueAsBytes(ApiResponse.fail(500, null, "warm-up")).length;
+        return bytes;
+    }
+
+    private record StepResult(String name, long millis, String outcome, String error) {
+
+        Map<String, Object> toDetail() {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("durationMs", millis);
+            detail.put("outcome", outcome);
+            if (error != null) {
+                detail.put("error", error);
+            }
+            return detail;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + millis + "ms(" + outcome + ")";
+        }
+    }
+}
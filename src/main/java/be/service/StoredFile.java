@@ -0,0 +1,17 @@
+package be.service;
+
+import be.domain.*;
+
+/**
+ * 저장소에 기록된 파일의 이름, 원본 바이트 크기, 원본의 SHA-256 다이제스트 (hex),
+ * 저장 인코딩과 실제로 저장된 바이트 크기.
+ */
+public record StoredFile(
+        String savedFileName,
+        long size,
+        String sha256,
+        StoredEncoding encoding,
+        long storedSize
+) {
+
+}
@@ -0,0 +1,24 @@
+package be.service;
+
+import be.domain.*;
+import java.util.*;
+import org.springframework.ai.converter.*;
+import org.springframework.core.*;
+
+/**
+ * 구조화 출력 변환기. JSON 스키마 생성은 비싸므로 호출마다 만들지 않고 한 번 만들어 공유한다.
+ * 변환기는 상태가 없어 여러 스레드에서 함께 써도 된다.
+ */
+public final class StructuredOutputs {
+
+    public static final BeanOutputConverter<List<Category>> CATEGORIES =
+            new BeanOutputConverter<>(new ParameterizedTypeReference<>() {
+            });
+
+    public static final BeanOutputConverter<List<String>> TAGS =
+            new BeanOutputConverter<>(new ParameterizedTypeReference<>() {
+            });
+
+    private StructuredOutputs() {
+    }
+}
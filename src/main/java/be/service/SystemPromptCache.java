@@ -0,0 +1,168 @@
+package be.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import lombok.extern.slf4j.*;
+import org.springframework.ai.chat.client.ChatClient.*;
+import org.springframework.ai.google.genai.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 정적인 시스템 프롬프트를 요청에 붙인다. prompt-cache 가 켜져 있으면 제공자의 컨텍스트 캐시에 한 번 등록하고,
+ * 이후 요청은 시스템 프롬프트 대신 캐시 이름만 보낸다.
+ * <p>
+ * 캐시는 (모델, 프롬프트) 마다 하나이며 만료 refresh-before 전에 새로 등록한다. 등록에 실패하면 (예: 프롬프트가
+ * 제공자의 최소 캐시 크기보다 작음) retry-after 동안 프롬프트를 그대로 보낸다.
+ * <p>
+ * 등록은 키마다 한 호출자만 map 잠금 밖에서 한다. 그동안 다른 호출자는 기다리지 않고 아직 만료되지 않은 이전 캐시를 쓰거나,
+ * 없으면 프롬프트를 그대로 보낸다. 느린 등록 요청이 같은 키나 같은 bin 의 다른 요청을 막지 않는다.
+ * 결과는 drawer.llm.prompt-cache (result=hit|inline|created|failed) 로 센다.
+ * <p>
+ * 모델과 생성 옵션은 {@link ModelRouter} 가 고른 경로를 따르며, 캐시는 모델마다 따로 등록된다.
+ */
+@Slf4j
+@Component
+public class SystemPromptCache {
+
+    private final boolean enabled;
+    private final String defaultModel;
+    private final Duration ttl;
+    private final Duration refreshBefore;
+    private final Duration retryAfter;
+    private final PromptCacheClient promptCacheClient;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Key, Slot> slots = new ConcurrentHashMap<>();
+
+    public SystemPromptCache(
+            @Value("${llm.prompt-cache.enabled}")
+            boolean enabled,
+            @Value("${spring.ai.google.genai.chat.options.model}")
+            String defaultModel,
+            @Value("${llm.prompt-cache.ttl}")
+            Duration ttl,
+            @Value("${llm.prompt-cache.refresh-before}")
+            Duration refreshBefore,
+            @Value("${llm.prompt-cache.retry-after}")
+            Duration retryAfter,
+            PromptCacheClient promptCacheClient,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.defaultModel = defaultModel;
+        this.ttl = ttl;
+        this.refreshBefore = refreshBefore;
+        this.retryAfter = retryAfter;
+        this.promptCacheClient = promptCacheClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void applyTo(ChatClientRequestSpec request, String systemPrompt) {
+        applyTo(request, systemPrompt, ModelRoute.defaultRoute(defaultModel));
+    }
+
+    /**
+     * 경로의 모델과 생성 옵션을 캐시 이름과 함께 한 번에 요청 옵션으로 붙인다.
+     */
+    public void applyTo(ChatClientRequestSpec request, String systemPrompt, ModelRoute route) {
+        Optional<String> cachedName = enabled ? lookup(route.model(), systemPrompt) : Optional.empty();
+
+        GoogleGenAiChatOptions.Builder options = GoogleGenAiChatOptions.builder()
+                .model(route.model())
+                .temperature(route.temperature())
+                .maxOutputTokens(route.maxOutputTokens());
+        if (cachedName.isPresent()) {
+            options.useCachedContent(true)
+                    .cachedContentName(cachedName.get());
+        } else {
+            request.system(systemPrompt);
+        }
+        request.options(options.build());
+    }
+
+    private Optional<String> lookup(String model, String systemPrompt) {
+        Key key = new Key(model, systemPrompt);
+        Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+        Instant now = Instant.now();
+
+        Entry entry = slot.entry;
+        if (needsRegistration(entry, now) && slot.registering.compareAndSet(false, true)) {
+            try {
+                entry = register(key, now);
+                slot.entry = entry;
+            } finally {
+                slot.registering.set(false);
+            }
+        }
+
+        if (entry == null || !entry.usableAt(now)) {
+            count("inline");
+            return Optional.empty();
+        }
+        count("hit");
+        return Optional.of(entry.name());
+    }
+
+    private boolean needsRegistration(Entry entry, Instant now) {
+        if (entry == null) {
+            return true;
+        }
+        if (entry.name() == null) {
+            // 최근에 등록에 실패했으면 expiresAt 까지 다시 시도하지 않는다
+            return !now.isBefore(entry.expiresAt());
+        }
+        return !now.isBefore(entry.expiresAt().minus(refreshBefore));
+    }
+
+    private Entry register(Key key, Instant now) {
+        try {
+            String name = promptCacheClient.create(key.model(), key.systemPrompt(), ttl);
+            log.info("Registered system prompt cache {} for {}", name, key.model());
+            count("created");
+            return new Entry(name, now.plus(ttl));
+        } catch (RuntimeException e) {
+            log.warn("Failed to register system prompt cache for {}, sending it inline for {}: {}",
+                    key.model(), retryAfter, e.toString());
+            count("failed");
+            return new Entry(null, now.plus(retryAfter));
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("drawer.llm.prompt-cache")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Key(String model, String systemPrompt) {
+
+    }
+
+    /**
+     * 키마다 마지막 등록 결과와, 지금 등록 중인지를 둔다.
+     */
+    private static final class Slot {
+
+        private final AtomicBoolean registering = new AtomicBoolean();
+        private volatile Entry entry;
+    }
+
+    /**
+     * @param name 등록에 실패했으면 null 이며, expiresAt 까지 다시 시도하지 않는다
+     */
+    private record Entry(String name, Instant expiresAt) {
+
+        /**
+         * 새로 등록할 때가 지났어도 만료 전이면 쓸 수 있다.
+         */
+        boolean usableAt(Instant now) {
+            return name != null && now.isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package be.service;
+
+import be.controller.dto.*;
+import be.repository.*;
+import java.text.*;
+import java.util.*;
+import java.util.concurrent.*;
+import lombok.extern.slf4j.*;
+import org.springframework.boot.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.event.*;
+
+/**
+ * 태그 설명의 접두어로 태그를 찾아 파일 수가 많은 순으로 돌려주는 메모리 색인.
+ * <p>
+ * 설명은 NFKD 로 분해하고 결합 부호와 공백을 지운 뒤 소문자로 바꾼 키로 정렬해 skip list 에 둔다. 한글 음절은 자모로
+ * 나뉘므로 "하" 로 "한국" 을, 라틴 문자는 "cafe" 로 "Café" 를 찾는다.
+ * <p>
+ * 키가 HOT_PREFIX_LENGTH 이하인 짧은 접두어는 범위가 커서 훑으면 느리므로, 접두어마다 상위 HOT_CAPACITY 개를 들고
+ * 쓰기마다 고친다. 목록 밖 태그가 가질 수 있는 가장 높은 순위 (outsideBest) 를 함께 두어, 요청한 개수만큼의 앞부분이
+ * 여전히 맞는지 판단하고 맞지 않을 때만 다시 훑는다. 파일 수가 같으면 짧은 설명이 앞서므로 파일 수만으로는 판단하지 않는다.
+ * 긴 접두어는 범위를 훑어 상위 limit 개를 고른다.
+ * <p>
+ * 시작할 때와 rebuild-interval 마다 DB 에서 다시 만들고, 그 사이에는 커밋된 {@link FileMembershipChangedEvent} 로 파일 수를 증감한다.
+ * 재구성하는 동안 들어온 변경은 기록해 두었다가 새 색인에 다시 적용한 뒤 바꿔 끼운다. 읽기 직전에 커밋됐지만 늦게 전달된
+ * 변경은 두 번 세어질 수 있으며, 다음 재구성에서 맞춰진다.
+ */
+@Slf4j
+@Component
+public class TagSuggestIndex implements ApplicationRunner {
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private static final int HOT_PREFIX_LENGTH = 2;
+    private static final int HOT_CAPACITY = MAX_SUGGESTIONS * 4;
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::fileCount).reversed()
+            .thenComparingInt(entry -> entry.description.length())
+            .thenComparing(entry -> entry.description);
+
+    private final TagRepository tagRepository;
+
+    private volatile State state = new State();
+    /**
+     * 재구성하는 동안 들어온 변경. 재구성 중이 아니면 null 이다. this 의 lock 안에서만 다룬다.
+     */
+    private List<FileMembershipChangedEvent> duringRebuild;
+
+    public TagSuggestIndex(TagRepository tagRepository) {
+        this.tagRepository = tagRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    @Scheduled(
+            initialDelayString = "${tag-suggest.rebuild-interval}",
+            fixedDelayString = "${tag-suggest.rebuild-interval}"
+    )
+    public void rebuild() {
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+        try {
+            State rebuilt = new State();
+            for (TagRepository.TagUsage usage : tagRepository.countLiveFilesByDescription()) {
+                rebuilt.add(usage.getDescription(), usage.getFileCount());
+            }
+            int replayed;
+            synchronized (this) {
+                duringRebuild.forEach(event -> apply(rebuilt, event));
+                replayed = duringRebuild.size();
+                state = rebuilt;
+            }
+            log.info("Rebuilt tag suggest index with {} tags, replayed {} changes", rebuilt.byDescription.size(), replayed);
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild tag suggest index, keeping the current one", e);
+        } finally {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMembershipChanged(FileMembershipChangedEvent event) {
+        apply(state, event);
+        if (duringRebuild != null) {
+            duringRebuild.add(event);
+        }
+    }
+
+    private static void apply(State target, FileMembershipChangedEvent event) {
+        Set<String> before = new HashSet<>(event.before().tags());
+        Set<String> after = new HashSet<>(event.after().tags());
+        for (String description : before) {
+            if (!after.contains(description)) {
+                target.add(description, -1);
+            }
+        }
+        for (String description : after) {
+            if (!before.contains(description)) {
+                target.add(description, 1);
+            }
+        }
+    }
+
+    /**
+     * @param limit 1 이상 {@link #MAX_SUGGESTIONS} 이하
+     */
+    public List<TagSuggestion> suggest(String prefix, int limit) {
+        State current = state;
+        String key = normalize(prefix == null ? "" : prefix);
+
+        List<Entry> entries = key.length() <= HOT_PREFIX_LENGTH
+                ? current.hot(key, limit, this)
+                : current.scan(key, limit);
+        return entries.stream()
+                .map(entry -> new TagSuggestion(entry.description, entry.fileCount))
+                .toList();
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        decomposed.codePoints().forEach(codePoint -> {
+            if (Character.isWhitespace(codePoint) || Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                return;
+            }
+            builder.appendCodePoint(Character.toLowerCase(codePoint));
+        });
+        return builder.toString();
+    }
+
+    private static final class Entry {
+
+        private final String description;
+        private final String normalized;
+        private volatile long fileCount;
+
+        private Entry(String description) {
+            this(description, normalize(description), 0);
+        }
+
+        private Entry(String description, String normalized, long fileCount) {
+            this.description = description;
+            this.normalized = normalized;
+            this.fileCount = fileCount;
+        }
+
+        /**
+         * 지금 파일 수로 고정한 사본. 순위 비교에만 쓴다.
+         */
+        private Entry snapshot() {
+            return new Entry(description, normalized, fileCount);
+        }
+
+        /**
+         * 같은 키로 정규화되는 설명이 여러 개일 수 있어 설명을 덧붙인다.
+         */
+        private String key() {
+            return normalized + '\0' + description;
+        }
+
+        private long fileCount() {
+            return fileCount;
+        }
+    }
+
+    /**
+     * @param top         순위대로 정렬한 접두어의 상위 태그
+     * @param outsideBest top 에 없는 태그가 가질 수 있는 가장 높은 순위 ({@link Entry#snapshot()}). 없으면 null
+     * @param complete    top 이 접두어의 태그를 모두 담고 있으면 true
+     */
+    private record Hot(List<Entry> top, Entry outsideBest, boolean complete) {
+
+        boolean covers(int limit) {
+            if (complete || top.size() < limit) {
+                return complete;
+            }
+            return outsideBest == null || RANKING.compare(top.get(limit - 1), outsideBest) < 0;
+        }
+
+        /**
+         * 접두어에 속한 entry 의 파일 수가 바뀐 뒤의 상위 목록.
+         */
+        Hot updated(Entry entry) {
+            List<Entry> next = new ArrayList<>(top);
+            boolean contained = next.remove(entry);
+            Entry outside = outsideBest;
+
+            if (entry.fileCount > 0) {
+                if (contained || complete || next.size() < HOT_CAPACITY
+                    || RANKING.compare(entry, next.getLast()) < 0) {
+                    next.add(entry);
+                } else {
+                    outside = better(outside, entry.snapshot());
+                }
+            }
+            next.sort(RANKING);
+            if (next.size() > HOT_CAPACITY) {
+                outside = better(outside, next.removeLast().snapshot());
+            }
+            return new Hot(List.copyOf(next), outside, complete && next.size() < HOT_CAPACITY);
+        }
+
+        private static Entry better(Entry current, Entry candidate) {
+            return current == null || RANKING.compare(candidate, current) < 0 ? candidate : current;
+        }
+    }
+
+    private static final class State {
+
+        private final Map<String, Entry> byDescription = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Entry> byKey = new ConcurrentSkipListMap<>();
+        private final Map<String, Hot> hot = new ConcurrentHashMap<>();
+
+        /**
+         * 쓰기는 TagSuggestIndex 의 lock 안에서만 한다.
+         */
+        private void add(String description, long delta) {
+            if (description == null) {
+                return;
+            }
+            Entry entry = byDescription.get(description);
+            if (entry == null) {
+                if (delta <= 0) {
+                    return;
+                }
+                entry = new Entry(description);
+                byDescription.put(description, entry);
+                byKey.put(entry.key(), entry);
+            }
+
+            entry.fileCount = Math.max(0, entry.fileCount + delta);
+            if (entry.fileCount == 0) {
+                byDescription.remove(description);
+                byKey.remove(entry.key());
+            }
+
+            for (int length = 0; length <= Math.min(HOT_PREFIX_LENGTH, entry.normalized.length()); length++) {
+                String prefix = entry.normalized.substring(0, length);
+                Hot current = hot.get(prefix);
+                if (current != null) {
+                    hot.put(prefix, current.updated(entry));
+                }
+            }
+        }
+
+        private List<Entry> hot(String prefix, int limit, Object lock) {
+            Hot current = hot.get(prefix);
+            if (current == null || !current.covers(limit)) {
+                synchronized (lock) {
+                    current = hot.get(prefix);
+                    if (current == null || !current.covers(limit)) {
+                        current = computeHot(prefix);
+                        hot.put(prefix, current);
+                    }
+                }
+            }
+            return current.top().subList(0, Math.min(limit, current.top().size()));
+        }
+
+        private Hot computeHot(String prefix) {
+            List<Entry> ranked = new ArrayList<>(range(prefix));
+            ranked.sort(RANKING);
+            if (ranked.size() <= HOT_CAPACITY) {
+                return new Hot(List.copyOf(ranked), null, true);
+            }
+            return new Hot(
+                    List.copyOf(ranked.subList(0, HOT_CAPACITY)), ranked.get(HOT_CAPACITY).snapshot(), false
+            );
+        }
+
+        private List<Entry> scan(String prefix, int limit) {
+            PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (Entry entry : range(prefix)) {
+                best.add(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Entry> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            return ranked;
+        }
+
+        private Collection<Entry> range(String prefix) {
+            return byKey.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package be.service;
+
+import be.domain.*;
+import be.repository.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+import lombok.extern.slf4j.*;
+import org.springframework.ai.document.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.transaction.support.*;
+
+/**
+ * outbox 에 쌓인 파일을 배치로 벡터 저장소에 반영한다.
+ * <p>
+ * 가져온 항목은 claim-lease 만큼 미뤄 두고 커밋한 뒤 벡터 저장소를 호출하므로, 느린 임베딩이나 Weaviate 호출이
+ * DB 커넥션과 행 잠금을 잡고 있지 않는다. 배치가 실패하면 반으로 나눠 다시 시도해, 거절되는 문서 하나가 나머지를
+ * 붙잡지 않게 한다. 혼자서도 실패한 항목만 시도 횟수에 따라 지수적으로 늦춰 다시 시도하고, max-attempts 번 실패하면
+ * dead letter 로 남긴다 (drawer.vector.outbox.dead-lettered). 저장소 전체가 실패하는 동안에는 배치마다 2n-1 번 호출하지만,
+ * 모든 항목이 늦춰지므로 backoff 주기마다 한 번뿐이다.
+ * 같은 파일은 같은 문서 id 로 덮어쓰므로, lease 가 만료돼 두 번 처리되더라도 결과는 같다.
+ */
+@Slf4j
+@Component
+public class VectorIndexer {
+
+    private final VectorIndexOutboxRepository outboxRepository;
+    private final FileRepository fileRepository;
+    private final FileVectorRepository fileVectorRepository;
+    private final ListingVersions listingVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration claimLease;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final int maxAttempts;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private final Counter indexed;
+    private final Counter failed;
+
+    public VectorIndexer(
+            VectorIndexOutboxRepository outboxRepository,
+            FileRepository fileRepository,
+            FileVectorRepository fileVectorRepository,
+            ListingVersions listingVersions,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${vector-index.outbox.batch-size}")
+            int batchSize,
+            @Value("${vector-index.outbox.claim-lease}")
+            Duration claimLease,
+            @Value("${vector-index.outbox.backoff-base}")
+            Duration backoffBase,
+            @Value("${vector-index.outbox.backoff-max}")
+            Duration backoffMax,
+            @Value("${vector-index.outbox.max-attempts}")
+            int maxAttempts
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.fileRepository = fileRepository;
+        this.fileVectorRepository = fileVectorRepository;
+        this.listingVersions = listingVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.claimLease = claimLease;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("drawer.vector.outbox.pending", pending, AtomicLong::get)
+                .description("벡터 저장소 반영을 기다리는 파일 수")
+                .register(meterRegistry);
+        Gauge.builder("drawer.vector.outbox.lag", lagSeconds, AtomicLong::get)
+                .description("가장 오래 기다린 outbox 항목의 대기 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("drawer.vector.outbox.dead-lettered", deadLetters, AtomicLong::get)
+                .description("max-attempts 번 실패해 더 시도하지 않는 outbox 항목 수")
+                .register(meterRegistry);
+        this.indexed = Counter.builder("drawer.vector.outbox.indexed").register(meterRegistry);
+        this.failed = Counter.builder("drawer.vector.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${vector-index.outbox.poll-interval}")
+    public void drain() {
+        try {
+            // 한 주기에 밀린 배치를 모두 비운다. 실패한 배치가 있으면 다음 주기로 넘긴다.
+            boolean more;
+            do {
+                more = drainBatch();
+            } while (more);
+        } catch (RuntimeException e) {
+            log.warn("Vector index outbox drain failed", e);
+        } finally {
+            updateLagMetrics();
+        }
+    }
+
+    /**
+     * @return 배치가 모두 성공했고 바로 이어서 처리할 항목이 더 있을 수 있으면 true
+     */
+    boolean drainBatch() {
+        List<Claim> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) {
+            return false;
+        }
+
+        int failures = index(claimed);
+        return failures == 0 && claimed.size() == batchSize;
+    }
+
+    /**
+     * 실패하면 반으로 나눠 다시 시도하고, 혼자서도 실패한 항목만 다시 예약한다.
+     *
+     * @return 다시 예약한 항목 수
+     */
+    private int index(List<Claim> claims) {
+        try {
+            store(claims);
+            return 0;
+        } catch (RuntimeException e) {
+            if (claims.size() == 1) {
+                failed.increment();
+                transactionTemplate.executeWithoutResult(status -> reschedule(claims.getFirst(), e));
+                return 1;
+            }
+            log.warn("Failed to index {} files, retrying in halves: {}", claims.size(), e.toString());
+        }
+
+        int half = claims.size() / 2;
+        return index(claims.subList(0, half)) + index(claims.subList(half, claims.size()));
+    }
+
+    private void store(List<Claim> claims) {
+        List<Document> documents = claims.stream()
+                .map(Claim::document)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!documents.isEmpty()) {
+            fileVectorRepository.addAll(documents);
+            listingVersions.onSearchIndexChanged();
+        }
+
+        List<Long> entryIds = claims.stream()
+                .map(Claim::entryId)
+                .toList();
+        transactionTemplate.executeWithoutResult(status ->
+                outboxRepository.deleteAllByIdInBatch(entryIds));
+        indexed.increment(documents.size());
+    }
+
+    private List<Claim> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<VectorIndexOutbox> entries = outboxRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        for (VectorIndexOutbox entry : entries) {
+            entry.claim(now.plus(claimLease));
+        }
+
+        Set<Long> fileIds = entries.stream()
+                .map(VectorIndexOutbox::getFileId)
+                .collect(Collectors.toSet());
+        // 이미 삭제된 파일은 문서 없이 outbox 항목만 정리된다
+        Map<Long, Document> documents = new HashMap<>();
+        for (File file : fileRepository.findAllById(fileIds)) {
+            fileVectorRepository.toDocuments(List.of(file))
+                    .forEach(document -> documents.put(file.getId(), document));
+        }
+
+        return entries.stream()
+                .map(entry -> new Claim(entry.getId(), entry.getFileId(), documents.get(entry.getFileId())))
+                .toList();
+    }
+
+    private void reschedule(Claim claim, RuntimeException cause) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.findById(claim.entryId()).ifPresent(entry -> {
+            entry.fail(cause.toString(), now.plus(backoff(entry.getAttempts())));
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.deadLetter(now);
+                log.error("Gave up indexing file {} after {} attempts", claim.fileId(), entry.getAttempts(), cause);
+            } else {
+                log.warn("Failed to index file {}, will retry: {}", claim.fileId(), cause.toString());
+            }
+        });
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = backoffBase.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(backoffMax) > 0 ? backoffMax : delay;
+    }
+
+    private void updateLagMetrics() {
+        try {
+            pending.set(outboxRepository.countByDeadLetteredAtIsNull());
+            deadLetters.set(outboxRepository.countByDeadLetteredAtIsNotNull());
+            lagSeconds.set(outboxRepository.findFirstByDeadLetteredAtIsNullOrderByIdAsc()
+                    .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toSeconds())
+                    .orElse(0L));
+        } catch (RuntimeException e) {
+            log.warn("Failed to update vector index outbox metrics", e);
+        }
+    }
+
+    /**
+     * @param document 파일이 삭제됐으면 null
+     */
+    private record Claim(Long entryId, Long fileId, Document document) {
+
+    }
+}
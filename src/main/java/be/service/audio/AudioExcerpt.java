@@ -0,0 +1,17 @@
+package be.service.audio;
+
+import java.time.*;
+import java.util.*;
+import org.springframework.util.*;
+
+/**
+ * 녹음에서 잘라낸 구간들. 각 구간은 그대로 재생할 수 있는 독립된 파일이다.
+ *
+ * @param duration 측정한 전체 길이
+ */
+public record AudioExcerpt(Duration duration, List<Segment> segments) {
+
+    public record Segment(MimeType mimeType, byte[] data, Duration start, Duration end) {
+
+    }
+}
@@ -0,0 +1,100 @@
+package be.service.audio;
+
+import be.domain.File;
+import be.service.*;
+import com.github.benmanes.caffeine.cache.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.*;
+import java.time.*;
+import java.util.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+import org.springframework.util.*;
+import org.springframework.util.unit.*;
+
+/**
+ * 긴 녹음을 통째로 보내지 않도록 길이를 측정하고 앞부분과 고르게 뽑은 표본 구간만 잘라낸다.
+ * WAV 와 MP3 만 자를 수 있으며, 그 외 형식은 빈 값을 돌려준다.
+ * <p>
+ * 세 분석 단계가 같은 파일을 동시에 요청하므로 결과를 잠깐 보관해 녹음을 한 번만 읽는다.
+ * 측정한 길이는 drawer.audio.duration (format) 으로 기록한다.
+ */
+@Slf4j
+@Component
+public class AudioSegmenter {
+
+    private static final Set<String> WAV_TYPES = Set.of("audio/wav", "audio/x-wav", "audio/wave", "audio/vnd.wave");
+    private static final Set<String> MP3_TYPES = Set.of("audio/mpeg", "audio/mp3", "audio/mpeg3", "audio/x-mpeg-3");
+
+    private final FileIO fileIO;
+    private final ExcerptPlan plan;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Optional<AudioExcerpt>> recent;
+
+    public AudioSegmenter(
+            FileIO fileIO,
+            @Value("${audio.excerpt.head}")
+            Duration head,
+            @Value("${audio.excerpt.sample-length}")
+            Duration sampleLength,
+            @Value("${audio.excerpt.samples}")
+            int samples,
+            @Value("${audio.excerpt.max-bytes}")
+            DataSize maxBytes,
+            MeterRegistry meterRegistry
+    ) {
+        this.fileIO = fileIO;
+        this.plan = new ExcerptPlan(head, sampleLength, samples, maxBytes.toBytes());
+        this.meterRegistry = meterRegistry;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(16)
+                .expireAfterWrite(Duration.ofMinutes(2))
+                .build();
+    }
+
+    /**
+     * @return 자를 수 없는 형식이거나 읽다가 실패하면 빈 값
+     */
+    public Optional<AudioExcerpt> excerpt(File file) {
+        String format = format(file.getFileMediaType());
+        if (format == null) {
+            return Optional.empty();
+        }
+        return recent.get(file.getSavedFileName(), key -> read(file, format));
+    }
+
+    private Optional<AudioExcerpt> read(File file, String format) {
+        try (InputStream in = fileIO.openFileData(file.getSavedFileName(), file.getStoredEncoding(), true)) {
+            AudioExcerpt excerpt = format.equals("wav")
+                    ? WavExcerpter.excerpt(in, file.getFileSize(), plan)
+                    : Mp3Excerpter.excerpt(in, file.getFileSize(), plan);
+
+            log.info("Excerpted {} segments ({} bytes) from {} of {} audio",
+                    excerpt.segments().size(),
+                    excerpt.segments().stream().mapToLong(segment -> segment.data().length).sum(),
+                    excerpt.duration(), format);
+            DistributionSummary.builder("drawer.audio.duration")
+                    .baseUnit("seconds")
+                    .tag("format", format)
+                    .register(meterRegistry)
+                    .record(excerpt.duration().toMillis() / 1000.0);
+            return excerpt.segments().isEmpty() ? Optional.empty() : Optional.of(excerpt);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to excerpt {} audio {}: {}", format, file.getSavedFileName(), e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private static String format(MimeType mimeType) {
+        String type = mimeType.getType() + "/" + mimeType.getSubtype();
+        if (WAV_TYPES.contains(type)) {
+            return "wav";
+        }
+        if (MP3_TYPES.contains(type)) {
+            return "mp3";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package be.service.audio;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * 전체 길이를 보고 잘라낼 구간을 정한다. 앞부분 head 와, 나머지를 고르게 나눈 위치의 sampleLength 구간 samples 개다.
+ * 전체 길이가 그보다 짧으면 전체 한 구간이며, 예상 크기가 maxBytes 를 넘으면 각 구간을 같은 비율로 줄인다.
+ */
+record ExcerptPlan(Duration head, Duration sampleLength, int samples, long maxBytes) {
+
+    /**
+     * @param durationSeconds 전체 길이 (추정치일 수 있다)
+     * @param bytesPerSecond  잘라낸 구간의 초당 크기
+     */
+    List<Window> windows(double durationSeconds, double bytesPerSecond) {
+        double head = seconds(this.head);
+        double sample = seconds(sampleLength);
+
+        List<Window> windows = new ArrayList<>();
+        if (durationSeconds <= head + samples * sample) {
+            windows.add(new Window(0, durationSeconds));
+        } else {
+            windows.add(new Window(0, head));
+            double rest = durationSeconds - head;
+            for (int i = 1; i <= samples; i++) {
+                double start = Math.max(head + rest * i / (samples + 1) - sample / 2, windows.getLast().end());
+                windows.add(new Window(start, Math.min(start + sample, durationSeconds)));
+            }
+        }
+
+        double planned = windows.stream().mapToDouble(Window::length).sum();
+        double scale = Math.min(1, maxBytes / Math.max(1, planned * bytesPerSecond));
+        if (scale >= 1) {
+            return windows;
+        }
+        return windows.stream()
+                .map(window -> new Window(window.start(), window.start() + window.length() * scale))
+                .toList();
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+    record Window(double start, double end) {
+
+        double length() {
+            return end - start;
+        }
+
+        boolean contains(double seconds) {
+            return start <= seconds && seconds < end;
+        }
+    }
+}
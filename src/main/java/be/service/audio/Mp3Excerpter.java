@@ -0,0 +1,222 @@
+package be.service.audio;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import org.springframework.util.*;
+
+/**
+ * MPEG 오디오 (MP3) 프레임을 한 번 훑으며 구간에 속한 프레임만 모은다. 프레임을 이어 붙인 것도 재생 가능한 MP3 다.
+ * <p>
+ * 구간 위치는 첫 프레임의 Xing/Info 헤더 (VBR) 나 비트레이트 (CBR) 로 추정한 길이로 정하고,
+ * 전체 길이는 끝까지 센 프레임 수로 다시 측정한다. 동기화가 깨진 바이트는 한 바이트씩 건너뛴다.
+ */
+final class Mp3Excerpter {
+
+    static final MimeType MP3 = MimeType.valueOf("audio/mpeg");
+
+    private static final int[][] BITRATES_V1 = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+    };
+    private static final int[][] BITRATES_V2 = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+    };
+    private static final int[] SAMPLE_RATES_V1 = {44100, 48000, 32000};
+
+    private Mp3Excerpter() {
+    }
+
+    static AudioExcerpt excerpt(InputStream in, Long fileSize, ExcerptPlan plan) throws IOException {
+        BufferedInputStream data = new BufferedInputStream(in);
+        long audioStart = skipId3v2(data);
+
+        Frame first = nextFrame(data);
+        if (first == null) {
+            throw new IOException("No MPEG audio frame found");
+        }
+
+        long audioBytes = fileSize == null ? 0 : Math.max(0, fileSize - audioStart);
+        double estimated = first.xingFrames() > 0
+                ? (double) first.xingFrames() * first.samplesPerFrame() / first.sampleRate()
+                : audioBytes * 8.0 / (first.bitrateKbps() * 1000.0);
+        if (estimated <= 0) {
+            // 크기를 모르면 앞부분만 자른다
+            estimated = plan.head().toMillis() / 1000.0;
+        }
+        double bytesPerSecond = estimated > 0 && audioBytes > 0
+                ? audioBytes / estimated
+                : first.bitrateKbps() * 1000 / 8.0;
+
+        List<ExcerptPlan.Window> windows = plan.windows(estimated, bytesPerSecond);
+        List<ByteArrayOutputStream> buffers = new ArrayList<>();
+        double[] starts = new double[windows.size()];
+        double[] ends = new double[windows.size()];
+        for (int i = 0; i < windows.size(); i++) {
+            buffers.add(new ByteArrayOutputStream());
+            starts[i] = -1;
+        }
+
+        double elapsed = 0;
+        int current = 0;
+        for (Frame frame = first; frame != null; frame = nextFrame(data)) {
+            while (current < windows.size() && elapsed >= windows.get(current).end()) {
+                current++;
+            }
+            if (current < windows.size() && windows.get(current).contains(elapsed)) {
+                buffers.get(current).writeBytes(frame.bytes());
+                if (starts[current] < 0) {
+                    starts[current] = elapsed;
+                }
+                ends[current] = elapsed + frame.seconds();
+            }
+            elapsed += frame.seconds();
+        }
+
+        List<AudioExcerpt.Segment> segments = new ArrayList<>();
+        for (int i = 0; i < windows.size(); i++) {
+            if (buffers.get(i).size() > 0) {
+                segments.add(new AudioExcerpt.Segment(
+                        MP3, buffers.get(i).toByteArray(), seconds(starts[i]), seconds(ends[i])
+                ));
+            }
+        }
+        return new AudioExcerpt(seconds(elapsed), segments);
+    }
+
+    /**
+     * @return 건너뛴 ID3v2 태그 크기
+     */
+    private static long skipId3v2(BufferedInputStream data) throws IOException {
+        data.mark(10);
+        byte[] header = data.readNBytes(10);
+        if (header.length < 10 || !new String(header, 0, 3, StandardCharsets.ISO_8859_1).equals("ID3")) {
+            data.reset();
+            return 0;
+        }
+
+        long size = (header[6] & 0x7FL) << 21 | (header[7] & 0x7FL) << 14 | (header[8] & 0x7FL) << 7 | header[9] & 0x7FL;
+        if ((header[5] & 0x10) != 0) {
+            size += 10;
+        }
+        data.skipNBytes(size);
+        return 10 + size;
+    }
+
+    /**
+     * @return 스트림이 끝나면 null
+     */
+    private static Frame nextFrame(BufferedInputStream data) throws IOException {
+        int header = 0;
+        int available = 0;
+        while (true) {
+            int next = data.read();
+            if (next < 0) {
+                return null;
+            }
+            header = header << 8 | next;
+            if (++available < 4) {
+                continue;
+            }
+
+            Frame frame = Frame.parse(header);
+            if (frame == null) {
+                continue;
+            }
+            byte[] bytes = new byte[frame.length()];
+            bytes[0] = (byte) (header >>> 24);
+            bytes[1] = (byte) (header >>> 16);
+            bytes[2] = (byte) (header >>> 8);
+            bytes[3] = (byte) header;
+            int read = data.readNBytes(bytes, 4, bytes.length - 4);
+            if (read < bytes.length - 4) {
+                return null;
+            }
+            return frame.withBytes(bytes);
+        }
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofMillis((long) (seconds * 1000));
+    }
+
+    /**
+     * @param xingFrames 첫 프레임의 Xing/Info 헤더가 알려준 전체 프레임 수. 없으면 0
+     */
+    private record Frame(
+            int bitrateKbps, int sampleRate, int samplesPerFrame, int length, int sideInfoSize,
+            byte[] bytes, long xingFrames
+    ) {
+
+        static Frame parse(int header) {
+            if ((header & 0xFFE00000) != 0xFFE00000) {
+                return null;
+            }
+            int version = header >>> 19 & 0x3;   // 0: 2.5, 1: 예약, 2: 2, 3: 1
+            int layer = header >>> 17 & 0x3;     // 1: III, 2: II, 3: I
+            int bitrateIndex = header >>> 12 & 0xF;
+            int sampleRateIndex = header >>> 10 & 0x3;
+            int padding = header >>> 9 & 0x1;
+            boolean mono = (header >>> 6 & 0x3) == 3;
+            if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return null;
+            }
+
+            boolean v1 = version == 3;
+            int layerIndex = 3 - layer;          // 0: I, 1: II, 2: III
+            int bitrate = (v1 ? BITRATES_V1 : BITRATES_V2)[layerIndex][bitrateIndex];
+            int sampleRate = SAMPLE_RATES_V1[sampleRateIndex] / (v1 ? 1 : version == 2 ? 2 : 4);
+
+            int samplesPerFrame;
+            int length;
+            if (layerIndex == 0) {
+                samplesPerFrame = 384;
+                length = (12 * bitrate * 1000 / sampleRate + padding) * 4;
+            } else if (layerIndex == 2 && !v1) {
+                samplesPerFrame = 576;
+                length = 72 * bitrate * 1000 / sampleRate + padding;
+            } else {
+                samplesPerFrame = 1152;
+                length = 144 * bitrate * 1000 / sampleRate + padding;
+            }
+            if (length < 4) {
+                return null;
+            }
+
+            int sideInfoSize = v1 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+            return new Frame(bitrate, sampleRate, samplesPerFrame, length, sideInfoSize, null, 0);
+        }
+
+        Frame withBytes(byte[] bytes) {
+            return new Frame(
+                    bitrateKbps, sampleRate, samplesPerFrame, length, sideInfoSize, bytes, readXingFrames(bytes)
+            );
+        }
+
+        double seconds() {
+            return (double) samplesPerFrame / sampleRate;
+        }
+
+        private long readXingFrames(byte[] bytes) {
+            int offset = 4 + sideInfoSize;
+            if (bytes.length < offset + 12) {
+                return 0;
+            }
+            String tag = new String(bytes, offset, 4, StandardCharsets.ISO_8859_1);
+            if (!tag.equals("Xing") && !tag.equals("Info")) {
+                return 0;
+            }
+            if ((bytes[offset + 7] & 0x1) == 0) {
+                return 0;
+            }
+            return (bytes[offset + 8] & 0xFFL) << 24
+                   | (bytes[offset + 9] & 0xFFL) << 16
+                   | (bytes[offset + 10] & 0xFFL) << 8
+                   | bytes[offset + 11] & 0xFFL;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package be.service.audio;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import org.springframework.util.*;
+
+/**
+ * RIFF/WAVE 파일의 data 청크에서 구간을 잘라 같은 fmt 청크를 가진 WAV 로 다시 감싼다.
+ * 길이는 헤더의 data 크기와 byteRate 로 계산하므로 스트림을 한 번만, 필요한 구간까지만 읽는다.
+ */
+final class WavExcerpter {
+
+    static final MimeType WAV = MimeType.valueOf("audio/wav");
+
+    private WavExcerpter() {
+    }
+
+    static AudioExcerpt excerpt(InputStream in, Long fileSize, ExcerptPlan plan) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        byte[] riff = data.readNBytes(12);
+        if (riff.length < 12 || !ascii(riff, 0).equals("RIFF") || !ascii(riff, 8).equals("WAVE")) {
+            throw new IOException("Not a RIFF/WAVE stream");
+        }
+
+        long position = 12;
+        byte[] fmt = null;
+        while (true) {
+            byte[] header = data.readNBytes(8);
+            if (header.length < 8) {
+                throw new IOException("WAVE data chunk not found");
+            }
+            position += 8;
+            String id = ascii(header, 0);
+            long size = le32(header, 4);
+
+            if (id.equals("data")) {
+                if (fmt == null) {
+                    throw new IOException("WAVE fmt chunk must precede data");
+                }
+                // 스트리밍으로 기록된 파일은 크기를 0 이나 최댓값으로 남긴다
+                if ((size == 0 || size == 0xFFFFFFFFL) && fileSize != null) {
+                    size = fileSize - position;
+                }
+                return excerptData(data, fmt, size, plan);
+            }
+
+            long padded = size + (size & 1);
+            if (id.equals("fmt ")) {
+                fmt = data.readNBytes((int) size);
+                data.skipNBytes(padded - size);
+            } else {
+                data.skipNBytes(padded);
+            }
+            position += padded;
+        }
+    }
+
+    private static AudioExcerpt excerptData(DataInputStream data, byte[] fmt, long dataSize, ExcerptPlan plan)
+            throws IOException {
+        if (fmt.length < 16) {
+            throw new IOException("WAVE fmt chunk is too short");
+        }
+        long byteRate = le32(fmt, 8);
+        int blockAlign = Math.max(1, le16(fmt, 12));
+        if (byteRate == 0) {
+            throw new IOException("WAVE byte rate is zero");
+        }
+
+        double duration = (double) dataSize / byteRate;
+        List<AudioExcerpt.Segment> segments = new ArrayList<>();
+        long position = 0;
+        for (ExcerptPlan.Window window : plan.windows(duration, byteRate)) {
+            long start = align(window.start() * byteRate, blockAlign);
+            long end = Math.min(align(window.end() * byteRate, blockAlign), dataSize);
+            if (end <= start) {
+                continue;
+            }
+
+            data.skipNBytes(start - position);
+            byte[] samples = data.readNBytes((int) (end - start));
+            position = start + samples.length;
+            segments.add(new AudioExcerpt.Segment(
+                    WAV,
+                    wrap(fmt, samples),
+                    seconds((double) start / byteRate),
+                    seconds((double) position / byteRate)
+            ));
+            if (samples.length < end - start) {
+                break;
+            }
+        }
+        return new AudioExcerpt(seconds(duration), segments);
+    }
+
+    private static byte[] wrap(byte[] fmt, byte[] samples) throws IOException {
+        int fmtPadding = fmt.length & 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(28 + fmt.length + samples.length);
+        out.writeBytes("RIFF".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(out, 4 + 8 + fmt.length + fmtPadding + 8 + samples.length + (samples.length & 1));
+        out.writeBytes("WAVEfmt ".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(out, fmt.length);
+        out.writeBytes(fmt);
+        out.write(new byte[fmtPadding]);
+        out.writeBytes("data".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(out, samples.length);
+        out.writeBytes(samples);
+        out.write(new byte[samples.length & 1]);
+        return out.toByteArray();
+    }
+
+    private static long align(double bytes, int blockAlign) {
+        long value = (long) bytes;
+        return value - value % blockAlign;
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofMillis((long) (seconds * 1000));
+    }
+
+    private static String ascii(byte[] bytes, int offset) {
+        return new String(bytes, offset, 4, StandardCharsets.US_ASCII);
+    }
+
+    private static long le32(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+               | (bytes[offset + 1] & 0xFFL) << 8
+               | (bytes[offset + 2] & 0xFFL) << 16
+               | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static int le16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static void writeLe32(OutputStream out, long value) throws IOException {
+        out.write((int) value & 0xFF);
+        out.write((int) (value >> 8) & 0xFF);
+        out.write((int) (value >> 16) & 0xFF);
+        out.write((int) (value >> 24) & 0xFF);
+    }
+}
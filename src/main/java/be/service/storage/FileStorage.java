@@ -0,0 +1,57 @@
+package be.service.storage;
+
+import be.domain.exception.FileNotFoundException;
+import java.io.*;
+import java.net.*;
+import java.time.*;
+import java.util.*;
+import org.springframework.http.*;
+
+/**
+ * 파일 바이트를 보관하는 저장소. 크기 제한, 다이제스트, 메트릭은 {@link be.service.FileIO} 가 담당한다.
+ */
+public interface FileStorage {
+
+    /**
+     * 스트림 전체를 fileName 으로 기록한다. 이미 존재하면 {@link be.domain.exception.FileAlreadyExistException}.
+     */
+    void write(InputStream in, String fileName) throws IOException;
+
+    /**
+     * 존재하지 않으면 {@link be.domain.exception.FileNotFoundException}.
+     */
+    InputStream open(String fileName) throws IOException;
+
+    byte[] readAllBytes(String fileName) throws IOException;
+
+    void delete(String fileName) throws IOException;
+
+    /**
+     * 여러 파일을 지운다. 이미 없는 파일은 무시한다.
+     *
+     * @return 지우지 못한 파일 이름
+     */
+    default List<String> deleteAll(List<String> fileNames) {
+        List<String> failed = new ArrayList<>();
+        for (String fileName : fileNames) {
+            try {
+                delete(fileName);
+            } catch (FileNotFoundException ignored) {
+                // 이미 지워졌다
+            } catch (IOException | RuntimeException e) {
+                failed.add(fileName);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 클라이언트가 저장소에서 직접 내려받을 수 있는 만료 URL. 지원하지 않으면 비어있다.
+     * contentEncoding 이 있으면 응답의 Content-Encoding 으로 내려가도록 서명한다.
+     */
+    default Optional<URI> presignedDownloadUrl(
+            String fileName, MediaType mediaType, String contentEncoding, Duration ttl
+    ) {
+        return Optional.empty();
+    }
+}
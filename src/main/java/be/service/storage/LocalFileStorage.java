@@ -0,0 +1,179 @@
+package be.service.storage;
+
+import be.domain.exception.*;
+import be.domain.exception.FileNotFoundException;
+import be.util.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import lombok.extern.slf4j.*;
+
+/**
+ * 로컬 파일 시스템 저장소.
+ * <p>
+ * 파일은 이름의 CRC32 앞 4 자리로 만든 2 단계 디렉터리 ({@code ab/cd/<name>}) 에 저장한다.
+ * 이전의 평면 구조 ({@code <main-directory>/<name>}) 에 남은 파일도 계속 읽을 수 있으며,
+ * {@link StorageLayoutMigrator} 가 백그라운드에서 새 구조로 옮긴다.
+ */
+@Slf4j
+public class LocalFileStorage implements FileStorage {
+
+    static final String PARTIAL_SUFFIX = ".part";
+
+    private final Path baseDirPath;
+    private final FileUtil files;
+    private final Set<Path> knownShardDirs = ConcurrentHashMap.newKeySet();
+
+    public LocalFileStorage(Path baseDirPath, FileUtil files) {
+        this.baseDirPath = baseDirPath;
+        this.files = files;
+
+        try {
+            if (!files.exists(baseDirPath)) {
+                files.createDirectories(baseDirPath);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to create storage directory", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 같은 디렉터리의 임시 파일 (.part) 에 쓴 뒤 rename 하므로, 실패한 업로드가 최종 이름으로 남지 않는다.
+     */
+    @Override
+    public void write(InputStream in, String fileName) throws IOException {
+        Path target = shardedPath(fileName);
+        Path partial = target.resolveSibling(fileName + PARTIAL_SUFFIX);
+
+        if (files.exists(target) || files.exists(legacyPath(fileName))) {
+            String errMsg = String.format(
+                    "File %s already exists in directory %s",
+                    fileName, baseDirPath
+            );
+
+            FileAlreadyExistException ex = new FileAlreadyExistException(errMsg);
+            log.warn(errMsg, ex);
+            throw ex;
+        }
+
+        try {
+            ensureShardDirectory(target.getParent());
+
+            try (OutputStream out = files.newOutputStream(
+                    partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE
+            )) {
+                in.transferTo(out);
+            }
+
+            files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deletePartial(partial);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String fileName) throws IOException {
+        try {
+            return files.newInputStream(getExistingPath(fileName));
+        } catch (NoSuchFileException e) {
+            // 존재 확인과 열기 사이에 마이그레이션으로 위치가 바뀐 경우 한 번 더 찾는다.
+            return files.newInputStream(getExistingPath(fileName));
+        }
+    }
+
+    @Override
+    public byte[] readAllBytes(String fileName) throws IOException {
+        try {
+            return files.readAllBytes(getExistingPath(fileName));
+        } catch (NoSuchFileException e) {
+            return files.readAllBytes(getExistingPath(fileName));
+        }
+    }
+
+    @Override
+    public void delete(String fileName) throws IOException {
+        files.delete(getExistingPath(fileName));
+    }
+
+    /**
+     * 평면 구조에 남아있는 파일 하나를 샤딩된 위치로 옮긴다. 이미 옮겨졌다면 false.
+     */
+    boolean migrateLegacyFile(Path legacy) throws IOException {
+        String fileName = legacy.getFileName().toString();
+        Path target = shardedPath(fileName);
+
+        ensureShardDirectory(target.getParent());
+        try {
+            files.move(legacy, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    Path getBaseDirPath() {
+        return baseDirPath;
+    }
+
+    private Path shardedPath(String fileName) {
+        CRC32 crc = new CRC32();
+        crc.update(fileName.getBytes(StandardCharsets.UTF_8));
+        String hash = String.format("%08x", crc.getValue());
+
+        return baseDirPath
+                .resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(fileName);
+    }
+
+    private Path legacyPath(String fileName) {
+        return baseDirPath.resolve(fileName);
+    }
+
+    private void ensureShardDirectory(Path shardDir) throws IOException {
+        if (knownShardDirs.contains(shardDir)) {
+            return;
+        }
+        files.createDirectories(shardDir);
+        knownShardDirs.add(shardDir);
+    }
+
+    private void deletePartial(Path partial) {
+        try {
+            files.deleteIfExists(partial);
+        } catch (IOException e) {
+            log.warn("Failed to delete partial file {}", partial, e);
+        }
+    }
+
+    private Path getExistingPath(String fileName) {
+        Path sharded = shardedPath(fileName);
+        if (files.exists(sharded)) {
+            return sharded;
+        }
+
+        Path legacy = legacyPath(fileName);
+        if (files.exists(legacy)) {
+            return legacy;
+        }
+
+        // 평면 구조를 확인하는 사이 마이그레이션이 끝났을 수 있다.
+        if (!files.exists(sharded)) {
+            String errMsg = String.format(
+                    "File %s does not exist in directory %s",
+                    fileName, baseDirPath
+            );
+
+            FileNotFoundException ex = new FileNotFoundException();
+            log.warn(errMsg, ex);
+            throw ex;
+        }
+
+        return sharded;
+    }
+}
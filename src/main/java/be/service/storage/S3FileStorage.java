@@ -0,0 +1,246 @@
+package be.service.storage;
+
+import be.domain.exception.*;
+import be.domain.exception.FileNotFoundException;
+import java.io.*;
+import java.net.*;
+import java.time.*;
+import java.util.*;
+import lombok.extern.slf4j.*;
+import org.springframework.http.MediaType;
+import software.amazon.awssdk.core.sync.*;
+import software.amazon.awssdk.services.s3.*;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.*;
+import software.amazon.awssdk.services.s3.presigner.model.*;
+
+/**
+ * S3 호환 오브젝트 스토리지 저장소 (로컬에서는 MinIO).
+ * <p>
+ * 업로드는 part-size 단위로 잘라 multipart upload 로 흘려보내므로, 파일 전체를 메모리에 올리지 않는다.
+ * part-size 보다 작은 파일은 한 번의 PutObject 로 기록한다. 첫 part 는 작은 버퍼에서 시작해 필요한 만큼만 키우므로,
+ * 작은 파일은 파일 크기 정도의 메모리만 쓴다 (업로드 허용량이 세는 사본 크기를 넘지 않는다).
+ */
+@Slf4j
+public class S3FileStorage implements FileStorage, AutoCloseable {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final S3Client s3;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final String keyPrefix;
+    private final int partSize;
+
+    public S3FileStorage(
+            S3Client s3, S3Presigner presigner, String bucket, String keyPrefix, int partSize
+    ) {
+        this.s3 = s3;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.keyPrefix = keyPrefix;
+        this.partSize = partSize;
+    }
+
+    public void createBucketIfMissing() {
+        try {
+            s3.headBucket(b -> b.bucket(bucket));
+        } catch (NoSuchBucketException e) {
+            log.info("Creating bucket {}", bucket);
+            s3.createBucket(b -> b.bucket(bucket));
+        }
+    }
+
+    @Override
+    public void write(InputStream in, String fileName) throws IOException {
+        String key = keyOf(fileName);
+
+        if (exists(key)) {
+            String errMsg = String.format(
+                    "File %s already exists in bucket %s",
+                    fileName, bucket
+            );
+
+            FileAlreadyExistException ex = new FileAlreadyExistException(errMsg);
+            log.warn(errMsg, ex);
+            throw ex;
+        }
+
+        byte[] first = readFirstPart(in);
+
+        if (first.length < partSize) {
+            s3.putObject(
+                    b -> b.bucket(bucket).key(key),
+                    RequestBody.fromBytes(first)
+            );
+            return;
+        }
+
+        // 첫 part 가 가득 찼으면 그 버퍼를 다음 part 에도 그대로 쓴다
+        byte[] buffer = first;
+        int read = partSize;
+
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(bucket).key(key)).uploadId();
+        List<CompletedPart> parts = new ArrayList<>();
+
+        try {
+            int partNumber = 1;
+            while (read > 0) {
+                int number = partNumber++;
+                UploadPartResponse uploaded = s3.uploadPart(
+                        b -> b.bucket(bucket).key(key).uploadId(uploadId).partNumber(number),
+                        RequestBody.fromBytes(Arrays.copyOf(buffer, read))
+                );
+                parts.add(CompletedPart.builder()
+                        .partNumber(number)
+                        .eTag(uploaded.eTag())
+                        .build());
+
+                read = in.readNBytes(buffer, 0, partSize);
+            }
+
+            s3.completeMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(m -> m.parts(parts)));
+
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * 스트림의 끝이나 part-size 까지 읽는다. 버퍼는 두 배씩 키우며 part-size 를 넘지 않는다.
+     *
+     * @return part-size 보다 짧으면 읽은 길이만큼의 배열
+     */
+    private byte[] readFirstPart(InputStream in) throws IOException {
+        byte[] buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, partSize)];
+        int read = 0;
+
+        while (true) {
+            read += in.readNBytes(buffer, read, buffer.length - read);
+            if (read < buffer.length) {
+                return Arrays.copyOf(buffer, read);
+            }
+            if (buffer.length == partSize) {
+                return buffer;
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.min(2L * buffer.length, partSize));
+        }
+    }
+
+    /**
+     * 빈이 내려갈 때 Spring 이 부른다.
+     */
+    @Override
+    public void close() {
+        presigner.close();
+        s3.close();
+    }
+
+    @Override
+    public InputStream open(String fileName) {
+        try {
+            return s3.getObject(b -> b.bucket(bucket).key(keyOf(fileName)));
+        } catch (NoSuchKeyException e) {
+            throw notFound(fileName, e);
+        }
+    }
+
+    @Override
+    public byte[] readAllBytes(String fileName) {
+        try {
+            return s3.getObjectAsBytes(b -> b.bucket(bucket).key(keyOf(fileName))).asByteArray();
+        } catch (NoSuchKeyException e) {
+            throw notFound(fileName, e);
+        }
+    }
+
+    @Override
+    public void delete(String fileName) {
+        s3.deleteObject(b -> b.bucket(bucket).key(keyOf(fileName)));
+    }
+
+    /**
+     * DeleteObjects 로 최대 1000 개씩 한 번에 지운다. 없는 키는 S3 가 성공으로 처리한다.
+     */
+    @Override
+    public List<String> deleteAll(List<String> fileNames) {
+        List<String> failed = new ArrayList<>();
+
+        for (int from = 0; from < fileNames.size(); from += 1000) {
+            List<ObjectIdentifier> objects = fileNames.subList(from, Math.min(fileNames.size(), from + 1000))
+                    .stream()
+                    .map(fileName -> ObjectIdentifier.builder().key(keyOf(fileName)).build())
+                    .toList();
+
+            try {
+                DeleteObjectsResponse response = s3.deleteObjects(b -> b.bucket(bucket)
+                        .delete(d -> d.objects(objects).quiet(true)));
+                for (S3Error error : response.errors()) {
+                    log.warn("Failed to delete {}: {}", error.key(), error.message());
+                    failed.add(error.key().substring(keyPrefix.length()));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete {} objects", objects.size(), e);
+                objects.forEach(object -> failed.add(object.key().substring(keyPrefix.length())));
+            }
+        }
+
+        return failed;
+    }
+
+    @Override
+    public Optional<URI> presignedDownloadUrl(
+            String fileName, MediaType mediaType, String contentEncoding, Duration ttl
+    ) {
+        PresignedGetObjectRequest presigned = presigner.presignGetObject(
+                GetObjectPresignRequest.builder()
+                        .signatureDuration(ttl)
+                        .getObjectRequest(b -> b.bucket(bucket)
+                                .key(keyOf(fileName))
+                                .responseContentType(mediaType.toString())
+                                .responseContentEncoding(contentEncoding))
+                        .build()
+        );
+
+        try {
+            return Optional.of(presigned.url().toURI());
+        } catch (URISyntaxException e) {
+            log.warn("Presigned url is not a valid uri", e);
+            return Optional.empty();
+        }
+    }
+
+    private boolean exists(String key) {
+        try {
+            s3.headObject(b -> b.bucket(bucket).key(key));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            s3.abortMultipartUpload(b -> b.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort multipart upload {} of {}", uploadId, key, e);
+        }
+    }
+
+    private String keyOf(String fileName) {
+        return keyPrefix + fileName;
+    }
+
+    private FileNotFoundException notFound(String fileName, Exception cause) {
+        String errMsg = String.format(
+                "File %s does not exist in bucket %s",
+                fileName, bucket
+        );
+
+        FileNotFoundException ex = new FileNotFoundException();
+        log.warn(errMsg, cause);
+        return ex;
+    }
+}
@@ -0,0 +1,97 @@
+package be.service.storage;
+
+import be.util.*;
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import lombok.extern.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.context.event.*;
+import org.springframework.context.event.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 로컬 저장소에서 평면 구조로 저장된 기존 파일을 샤딩된 디렉터리로 옮긴다.
+ * <p>
+ * 남아있는 평면 파일 자체가 진행 상태이므로 별도 체크포인트 없이 재시작 후 이어서 진행된다.
+ * 서비스 중에도 실행되며, batch-size 개씩 옮긴 뒤 batch-pause 만큼 쉬어 디스크 부하를 제한한다.
+ */
+@Slf4j
+@Component
+public class StorageLayoutMigrator {
+
+    private final FileStorage fileStorage;
+    private final FileUtil files;
+    private final boolean migrateOnStartup;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    public StorageLayoutMigrator(
+            FileStorage fileStorage,
+            FileUtil files,
+            @Value("${file-storage.sharding.migrate-on-startup}")
+            boolean migrateOnStartup,
+            @Value("${file-storage.sharding.batch-size}")
+            int batchSize,
+            @Value("${file-storage.sharding.batch-pause}")
+            Duration batchPause
+    ) {
+        this.fileStorage = fileStorage;
+        this.files = files;
+        this.migrateOnStartup = migrateOnStartup;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!migrateOnStartup || !(fileStorage instanceof LocalFileStorage local)) {
+            return;
+        }
+
+        Thread.ofVirtual()
+                .name("storage-layout-migrator")
+                .start(() -> migrate(local));
+    }
+
+    void migrate(LocalFileStorage local) {
+        Path baseDir = local.getBaseDirPath();
+        long moved = 0;
+        int inBatch = 0;
+
+        try (DirectoryStream<Path> entries = files.newDirectoryStream(baseDir)) {
+            for (Path entry : entries) {
+                if (!isLegacyFile(entry)) {
+                    continue;
+                }
+
+                if (local.migrateLegacyFile(entry)) {
+                    moved++;
+                    inBatch++;
+                }
+
+                if (inBatch >= batchSize) {
+                    log.info("Storage layout migration in progress: {} files moved", moved);
+                    inBatch = 0;
+                    Thread.sleep(batchPause);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Storage layout migration stopped after {} files; will resume on next start", moved, e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Storage layout migration interrupted after {} files", moved);
+            return;
+        }
+
+        if (moved > 0) {
+            log.info("Storage layout migration finished: {} files moved", moved);
+        }
+    }
+
+    private boolean isLegacyFile(Path entry) {
+        return files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS)
+                && !entry.getFileName().toString().endsWith(LocalFileStorage.PARTIAL_SUFFIX);
+    }
+}
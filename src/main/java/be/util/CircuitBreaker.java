@@ -0,0 +1,165 @@
+package be.util;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+import lombok.*;
+
+/**
+ * 최근 window-size 번 호출의 실패율로 열리고 닫히는 회로 차단기.
+ * <p>
+ * 실패율이 임계값을 넘으면 open-duration 동안 호출을 거부하고, 그 뒤에는 half-open 으로 시험 호출을 몇 번만 허용한다.
+ * 시험 호출이 모두 성공하면 닫히고, 하나라도 실패하면 다시 열린다.
+ * 상태 전이는 짧은 임계 구역 안에서만 일어나며, 보호하는 호출 자체는 잠금 밖에서 실행된다.
+ * <p>
+ * 허가는 받은 시점의 세대를 가진다. 상태가 바뀔 때마다 세대가 올라가며, 이전 세대의 허가로 끝난 호출의 결과는 무시한다.
+ * 회로가 열리기 전에 들어간 느린 호출이 뒤늦게 실패해 open 시각을 다시 미루거나, half-open 의 성공으로 세어지지 않는다.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * @param generation 허가를 받을 때의 세대
+     */
+    public record Permit(long generation) {
+
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+
+    private final boolean[] failures;
+    private int recorded;
+    private int next;
+    private int failureCount;
+
+    @Getter
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(
+            int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration, int halfOpenCalls
+    ) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(
+            int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration, int halfOpenCalls,
+            LongSupplier nanoTime
+    ) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+        this.failures = new boolean[windowSize];
+    }
+
+    /**
+     * @return 호출해도 되면 허가. 허가를 받았다면 결과를 {@link #onSuccess}, {@link #onFailure}, {@link #release} 중 하나로 알려야 한다.
+     */
+    public synchronized Optional<Permit> tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openDuration.toNanos()) {
+                return Optional.empty();
+            }
+            transition(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return Optional.empty();
+            }
+            halfOpenPermits--;
+        }
+        return Optional.of(new Permit(generation));
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit.generation() != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit.generation() != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && (double) failureCount / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 결과를 알 수 없이 끝난 호출 (취소된 호출). 실패율에 넣지 않고 half-open 시험 기회를 돌려준다.
+     */
+    public synchronized void release(Permit permit) {
+        if (permit.generation() == generation && state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * 다시 시험 호출을 허용하기까지 남은 시간. open 이 아니면 0 이다.
+     */
+    public synchronized Duration remainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = openDuration.toNanos() - (nanoTime.getAsLong() - openedAt);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize && failures[next]) {
+            failureCount--;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failureCount++;
+        }
+        next = (next + 1) % windowSize;
+        recorded = Math.min(recorded + 1, windowSize);
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = nanoTime.getAsLong();
+    }
+
+    private void close() {
+        transition(State.CLOSED);
+        recorded = 0;
+        next = 0;
+        failureCount = 0;
+    }
+
+    private void transition(State to) {
+        state = to;
+        generation++;
+    }
+}
@@ -0,0 +1,94 @@
+package be.util;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import org.springframework.web.multipart.*;
+
+/**
+ * 읽은 바이트 수와 SHA-256 다이제스트를 함께 계산하는 스트림.
+ * <p>
+ * 최대 크기를 넘는 순간 {@link MaxUploadSizeExceededException} 을 던지므로,
+ * 저장소 구현은 내용을 그대로 흘려보내기만 하면 된다.
+ */
+public class DigestingInputStream extends FilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final MessageDigest digest = sha256();
+    private final long maxSize;
+    private long size;
+
+    public DigestingInputStream(InputStream in, long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+            digest.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+            digest.update(b, off, read);
+        }
+        return read;
+    }
+
+    /**
+     * 건너뛴 바이트도 다이제스트와 크기에 들어가도록 읽어서 버린다.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] scratch = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(scratch, 0, (int) Math.min(remaining, scratch.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String hexDigest() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void count(int read) {
+        size += read;
+        if (size > maxSize) {
+            throw new MaxUploadSizeExceededException(maxSize);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
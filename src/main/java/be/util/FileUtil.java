@@ -13,6 +13,14 @@ public class FileUtil {
         return Files.exists(path, options);
     }
 
+    public boolean isRegularFile(Path path, LinkOption... options) {
+        return Files.isRegularFile(path, options);
+    }
+
+    public DirectoryStream<Path> newDirectoryStream(Path dir) throws IOException {
+        return Files.newDirectoryStream(dir);
+    }
+
     public Path createDirectories(Path dir, FileAttribute<?>... attrs)
             throws IOException {
         return Files.createDirectories(dir, attrs);
@@ -29,4 +37,20 @@ public class FileUtil {
     public void delete(Path path) throws IOException {
         Files.delete(path);
     }
+
+    public boolean deleteIfExists(Path path) throws IOException {
+        return Files.deleteIfExists(path);
+    }
+
+    public InputStream newInputStream(Path path, OpenOption... options) throws IOException {
+        return Files.newInputStream(path, options);
+    }
+
+    public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+        return Files.newOutputStream(path, options);
+    }
+
+    public Path move(Path source, Path target, CopyOption... options) throws IOException {
+        return Files.move(source, target, options);
+    }
 }
@@ -0,0 +1,120 @@
+package be.util;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * 원본 스트림을 읽는 쪽에서 gzip 으로 압축된 바이트를 꺼내가는 스트림.
+ * <p>
+ * {@link GZIPOutputStream} 과 달리 당기는 (pull) 방식이라, 입력 스트림을 받는 저장소 구현에
+ * 별도 스레드나 임시 버퍼 없이 그대로 넘길 수 있다. 원본 스트림의 예외는 그대로 전파된다.
+ */
+public class GzipCompressingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final InputStream in;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] inBuf = new byte[BUFFER_SIZE];
+    private final byte[] outBuf = new byte[BUFFER_SIZE];
+
+    private int outPos;
+    private int outLen;
+    private long inputSize;
+    private long compressedSize;
+    private boolean inputDone;
+    private boolean trailerWritten;
+
+    public GzipCompressingInputStream(InputStream in, int level) {
+        this.in = in;
+        this.deflater = new Deflater(level, true);
+
+        System.arraycopy(HEADER, 0, outBuf, 0, HEADER.length);
+        this.outLen = HEADER.length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        while (outPos == outLen) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+
+        int n = Math.min(len, outLen - outPos);
+        System.arraycopy(outBuf, outPos, b, off, n);
+        outPos += n;
+        compressedSize += n;
+        return n;
+    }
+
+    /**
+     * 지금까지 내보낸 압축 바이트 수 (헤더와 트레일러 포함).
+     */
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        in.close();
+    }
+
+    private boolean fill() throws IOException {
+        outPos = 0;
+        outLen = 0;
+
+        while (!deflater.finished()) {
+            if (deflater.needsInput() && !inputDone) {
+                int read = in.read(inBuf);
+                if (read == -1) {
+                    inputDone = true;
+                    deflater.finish();
+                } else if (read > 0) {
+                    crc.update(inBuf, 0, read);
+                    inputSize += read;
+                    deflater.setInput(inBuf, 0, read);
+                }
+            }
+
+            int deflated = deflater.deflate(outBuf);
+            if (deflated > 0) {
+                outLen = deflated;
+                return true;
+            }
+        }
+
+        if (trailerWritten) {
+            return false;
+        }
+
+        writeIntLe((int) crc.getValue(), 0);
+        writeIntLe((int) inputSize, 4);
+        outLen = 8;
+        trailerWritten = true;
+        return true;
+    }
+
+    private void writeIntLe(int value, int offset) {
+        outBuf[offset] = (byte) value;
+        outBuf[offset + 1] = (byte) (value >> 8);
+        outBuf[offset + 2] = (byte) (value >> 16);
+        outBuf[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,40 @@
+package be.util;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * 최근 size 개 호출의 지연 시간으로 백분위를 구한다. 호출 빈도가 낮은 LLM 단계에서 쓰므로 조회 시 정렬한다.
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private int count;
+    private int next;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    public synchronized void record(Duration latency) {
+        samples[next] = latency.toNanos();
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * @return 표본이 minSamples 개보다 적으면 empty
+     */
+    public Optional<Duration> percentile(double quantile, int minSamples) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0 || count < minSamples) {
+                return Optional.empty();
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return Optional.of(Duration.ofNanos(sorted[Math.clamp(index, 0, sorted.length - 1)]));
+    }
+}
@@ -0,0 +1,41 @@
+package be.util;
+
+import java.util.*;
+import java.util.function.*;
+import org.slf4j.*;
+
+/**
+ * 비동기 작업에 현재 스레드의 MDC (request-id 등) 를 전달한다.
+ */
+public class MdcContext {
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            replace(context);
+            try {
+                return task.get();
+            } finally {
+                replace(previous);
+            }
+        };
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Supplier<Object> wrapped = wrap(() -> {
+            task.run();
+            return null;
+        });
+        return wrapped::get;
+    }
+
+    private static void replace(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package be.util.exception;
+
+import org.springframework.http.*;
+
+public class ConflictException extends CustomException {
+
+    public ConflictException(String message) {
+        this(message, null);
+    }
+
+    public ConflictException(String message, Object data) {
+        super(HttpStatus.CONFLICT.value(), message, data);
+    }
+}
@@ -0,0 +1,27 @@
+package be.util.exception;
+
+import java.time.*;
+import lombok.*;
+import org.springframework.http.*;
+
+@Getter
+public class ServiceUnavailableException extends CustomException {
+
+    /**
+     * 값이 있으면 응답에 Retry-After 헤더로 내려간다.
+     */
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message) {
+        this(message, null);
+    }
+
+    public ServiceUnavailableException(String message, Object data) {
+        this(message, data, null);
+    }
+
+    public ServiceUnavailableException(String message, Object data, Duration retryAfter) {
+        super(HttpStatus.SERVICE_UNAVAILABLE.value(), message, data);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,23 @@
+package be.util.metric;
+
+import lombok.*;
+
+@Getter
+@RequiredArgsConstructor
+public enum Stage {
+    SUMMARIZE("llm.summarize"),
+    EXTRACT_CATEGORY("llm.category"),
+    EXTRACT_TAG("llm.tag"),
+    RECOMMEND_CATEGORY("llm.recommend"),
+    EMBED_QUERY("embedding.query"),
+    VECTOR_SEARCH("vector.search"),
+    VECTOR_ADD("vector.add"),
+    VECTOR_DELETE("vector.delete"),
+    DB_READ("db.read"),
+    DB_WRITE("db.write"),
+    FILE_READ("file.read"),
+    FILE_WRITE("file.write"),
+    FILE_DELETE("file.delete");
+
+    private final String tag;
+}
@@ -0,0 +1,114 @@
+package be.util.metric;
+
+import be.domain.*;
+import io.micrometer.core.instrument.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import lombok.*;
+import org.springframework.stereotype.*;
+
+/**
+ * LLM, 벡터 저장소, DB, 파일 I/O 단계별 지연 시간과 사용량을 기록한다.
+ * <p>
+ * 태그는 stage, file.type, outcome, error 로 제한해 카디널리티를 낮게 유지하며,
+ * 생성된 meter 는 캐시해 요청 경로에서 registry 조회를 반복하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StageMetrics {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final StageTimingRecorder stageTimingRecorder;
+
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CounterKey, Counter> tokenCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CounterKey, DistributionSummary> mediaSummaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Stage, Counter> fileByteCounters = new ConcurrentHashMap<>();
+
+    public <T> T record(Stage stage, FileType fileType, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            long elapsed = System.nanoTime() - start;
+            timer(stage, fileType, "success", NONE).record(elapsed, TimeUnit.NANOSECONDS);
+            stageTimingRecorder.record(stage, elapsed);
+            return result;
+        } catch (RuntimeException | Error e) {
+            long elapsed = System.nanoTime() - start;
+            timer(stage, fileType, "error", e.getClass().getSimpleName()).record(elapsed, TimeUnit.NANOSECONDS);
+            stageTimingRecorder.record(stage, elapsed);
+            throw e;
+        }
+    }
+
+    public void record(Stage stage, FileType fileType, Runnable call) {
+        record(stage, fileType, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public void recordTokens(Stage stage, FileType fileType, Integer promptTokens, Integer completionTokens) {
+        if (promptTokens != null) {
+            tokenCounter(stage, fileType, "prompt").increment(promptTokens);
+        }
+        if (completionTokens != null) {
+            tokenCounter(stage, fileType, "completion").increment(completionTokens);
+        }
+    }
+
+    public void recordMediaBytes(Stage stage, FileType fileType, long bytes) {
+        mediaSummaries.computeIfAbsent(new CounterKey(stage, fileType, NONE), key ->
+                DistributionSummary.builder("drawer.llm.media.bytes")
+                        .baseUnit("bytes")
+                        .tag("stage", stage.getTag())
+                        .tag("file.type", nameOf(fileType))
+                        .register(registry)
+        ).record(bytes);
+    }
+
+    public void recordFileBytes(Stage stage, long bytes) {
+        fileByteCounters.computeIfAbsent(stage, key ->
+                Counter.builder("drawer.file.io.bytes")
+                        .baseUnit("bytes")
+                        .tag("stage", stage.getTag())
+                        .register(registry)
+        ).increment(bytes);
+    }
+
+    private Timer timer(Stage stage, FileType fileType, String outcome, String error) {
+        return timers.computeIfAbsent(new TimerKey(stage, fileType, outcome, error), key ->
+                Timer.builder("drawer.stage")
+                        .tag("stage", stage.getTag())
+                        .tag("file.type", nameOf(fileType))
+                        .tag("outcome", outcome)
+                        .tag("error", error)
+                        .publishPercentileHistogram()
+                        .register(registry)
+        );
+    }
+
+    private Counter tokenCounter(Stage stage, FileType fileType, String kind) {
+        return tokenCounters.computeIfAbsent(new CounterKey(stage, fileType, kind), key ->
+                Counter.builder("drawer.llm.tokens")
+                        .tag("stage", stage.getTag())
+                        .tag("file.type", nameOf(fileType))
+                        .tag("kind", kind)
+                        .register(registry)
+        );
+    }
+
+    private static String nameOf(FileType fileType) {
+        return fileType == null ? NONE : fileType.name();
+    }
+
+    private record TimerKey(Stage stage, FileType fileType, String outcome, String error) {
+
+    }
+
+    private record CounterKey(Stage stage, FileType fileType, String kind) {
+
+    }
+}
@@ -0,0 +1,77 @@
+package be.util.metric;
+
+import be.domain.*;
+import java.util.function.*;
+import lombok.*;
+import org.springframework.ai.chat.client.*;
+import org.springframework.ai.chat.client.ChatClient.*;
+import org.springframework.ai.chat.client.advisor.api.*;
+import org.springframework.ai.chat.metadata.*;
+import org.springframework.ai.chat.model.*;
+import org.springframework.ai.content.*;
+import org.springframework.core.*;
+import org.springframework.stereotype.*;
+
+/**
+ * ChatClient 호출마다 지연 시간, 토큰 사용량, 첨부 미디어 크기를 {@link StageMetrics} 에 기록한다.
+ * <p>
+ * 호출 측에서 {@link #stage(Stage, FileType)} 로 단계 정보를 넘긴 요청만 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class StageMetricsAdvisor implements CallAdvisor {
+
+    public static final String STAGE = "drawer.stage";
+    public static final String FILE_TYPE = "drawer.file-type";
+
+    private final StageMetrics stageMetrics;
+
+    public static Consumer<AdvisorSpec> stage(Stage stage, FileType fileType) {
+        return spec -> {
+            spec.param(STAGE, stage);
+            if (fileType != null) {
+                spec.param(FILE_TYPE, fileType);
+            }
+        };
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (!(request.context().get(STAGE) instanceof Stage stage)) {
+            return chain.nextCall(request);
+        }
+        FileType fileType = request.context().get(FILE_TYPE) instanceof FileType type ? type : null;
+
+        long mediaBytes = 0;
+        for (Media media : request.prompt().getUserMessage().getMedia()) {
+            if (media.getData() instanceof byte[] data) {
+                mediaBytes += data.length;
+            }
+        }
+        if (mediaBytes > 0) {
+            stageMetrics.recordMediaBytes(stage, fileType, mediaBytes);
+        }
+
+        ChatClientResponse response = stageMetrics.record(stage, fileType, () -> chain.nextCall(request));
+
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse != null) {
+            Usage usage = chatResponse.getMetadata().getUsage();
+            stageMetrics.recordTokens(
+                    stage, fileType, usage.getPromptTokens(), usage.getCompletionTokens()
+            );
+        }
+
+        return response;
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1000;
+    }
+}
@@ -0,0 +1,134 @@
+package be.util.metric;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import lombok.extern.slf4j.*;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.stereotype.*;
+
+/**
+ * 요청 단위로 단계별 소요 시간을 모은다.
+ * <p>
+ * MDC 의 request-id 를 키로 사용하므로, 비동기 작업은 {@link be.util.MdcContext} 로 MDC 를 전달해야 기록된다.
+ * 비활성화 상태에서는 어떤 상태도 만들지 않는다.
+ */
+@Slf4j
+@Component
+public class StageTimingRecorder {
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final String requestIdMdcKey;
+
+    private final ConcurrentMap<String, Timeline> timelines = new ConcurrentHashMap<>();
+
+    public StageTimingRecorder(
+            @Value("${stage-timing.enabled}")
+            boolean enabled,
+            @Value("${stage-timing.slow-request-threshold}")
+            Duration slowThreshold,
+            @Value("${mdc-key.request-id}")
+            String requestIdMdcKey
+    ) {
+        this.enabled = enabled;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.requestIdMdcKey = requestIdMdcKey;
+    }
+
+    public void begin(String requestId) {
+        if (!enabled || requestId == null) {
+            return;
+        }
+        timelines.put(requestId, new Timeline(System.nanoTime()));
+    }
+
+    public void record(Stage stage, long nanos) {
+        if (!enabled) {
+            return;
+        }
+
+        String requestId = MDC.get(requestIdMdcKey);
+        if (requestId == null) {
+            return;
+        }
+
+        Timeline timeline = timelines.get(requestId);
+        if (timeline != null) {
+            timeline.nanos.addAndGet(stage.ordinal(), nanos);
+            timeline.counts.incrementAndGet(stage.ordinal());
+        }
+    }
+
+    /**
+     * Server-Timing 헤더 값. 예) {@code llm.summarize;dur=812.4, db.write;dur=3.1, total;dur=840.2}
+     */
+    public Optional<String> serverTiming(String requestId) {
+        if (!enabled || requestId == null) {
+            return Optional.empty();
+        }
+
+        Timeline timeline = timelines.get(requestId);
+        if (timeline == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(timeline.describe(";dur=", ", ") + "total;dur=" + millis(timeline.elapsed()));
+    }
+
+    public void end(String requestId, String method, String uri) {
+        if (!enabled || requestId == null) {
+            return;
+        }
+
+        Timeline timeline = timelines.remove(requestId);
+        if (timeline == null) {
+            return;
+        }
+
+        long total = timeline.elapsed();
+        if (total >= slowThresholdNanos) {
+            log.warn(
+                    "Slow request: method={} uri={} total_ms={} stages=[{}]",
+                    method, uri, millis(total), timeline.describe("_ms=", " ").trim()
+            );
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private static final class Timeline {
+
+        private final long startNanos;
+        private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(STAGES.length);
+
+        private Timeline(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        private long elapsed() {
+            return System.nanoTime() - startNanos;
+        }
+
+        private String describe(String valueSeparator, String delimiter) {
+            StringBuilder builder = new StringBuilder();
+            for (Stage stage : STAGES) {
+                if (counts.get(stage.ordinal()) == 0) {
+                    continue;
+                }
+                builder.append(stage.getTag())
+                        .append(valueSeparator)
+                        .append(millis(nanos.get(stage.ordinal())))
+                        .append(delimiter);
+            }
+            return builder.toString();
+        }
+    }
+}
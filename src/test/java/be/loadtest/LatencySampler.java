@@ -0,0 +1,54 @@
+package be.loadtest;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * median, p99 로 정의되는 log-normal 분포에서 지연 시간을 뽑아 현재 스레드를 재운다.
+ * <p>
+ * seed 가 같으면 동일한 순서의 지연 시간이 생성된다.
+ */
+public class LatencySampler {
+
+    private static final double Z_99 = 2.326;
+
+    private final long medianNanos;
+    private final double sigma;
+    private final SplittableRandom random;
+
+    public LatencySampler(Duration median, Duration p99, long seed) {
+        this.medianNanos = median.toNanos();
+        this.sigma = (median.isZero() || p99.compareTo(median) <= 0) ?
+                0 : Math.log((double) p99.toNanos() / medianNanos) / Z_99;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public Duration sample() {
+        if (medianNanos == 0) {
+            return Duration.ZERO;
+        }
+
+        double gaussian;
+        synchronized (random) {
+            // Box-Muller
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            gaussian = Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+        }
+
+        return Duration.ofNanos((long) (medianNanos * Math.exp(sigma * gaussian)));
+    }
+
+    public void pause() {
+        Duration latency = sample();
+        if (latency.isZero()) {
+            return;
+        }
+
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package be.loadtest;
+
+import java.util.*;
+import org.springframework.ai.document.*;
+import org.springframework.ai.vectorstore.*;
+import org.springframework.ai.vectorstore.filter.*;
+
+/**
+ * 인메모리 VectorStore 에 Weaviate 와 유사한 네트워크 지연을 덧씌운다.
+ */
+public class LatencyVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final LatencySampler addLatency;
+    private final LatencySampler searchLatency;
+
+    public LatencyVectorStore(
+            VectorStore delegate, LatencySampler addLatency, LatencySampler searchLatency
+    ) {
+        this.delegate = delegate;
+        this.addLatency = addLatency;
+        this.searchLatency = searchLatency;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        addLatency.pause();
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        addLatency.pause();
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        addLatency.pause();
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        searchLatency.pause();
+        return delegate.similaritySearch(request);
+    }
+}
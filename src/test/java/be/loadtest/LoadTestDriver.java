@@ -0,0 +1,253 @@
+package be.loadtest;
+
+import be.*;
+import be.domain.*;
+import com.fasterxml.jackson.databind.*;
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.net.http.HttpResponse.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.springframework.boot.builder.*;
+import org.springframework.context.*;
+
+/**
+ * load-test 프로필로 애플리케이션을 띄운 뒤 업로드 / 목록 / 검색 / 다운로드 요청을 섞어 동시에 보내고,
+ * 엔드포인트별 처리량과 p50 / p95 / p99 지연 시간을 출력한다.
+ * <p>
+ * 설정은 시스템 프로퍼티로 받는다.
+ * <ul>
+ *     <li>{@code load-test.concurrency} : 동시 요청자 수 (기본 32)</li>
+ *     <li>{@code load-test.duration} : 측정 시간 (기본 PT60S)</li>
+ *     <li>{@code load-test.warm-up-uploads} : 측정 전 미리 올려둘 파일 수 (기본 20)</li>
+ *     <li>{@code load-test.mix} : upload:list:search:download 가중치 (기본 1:6:3:3)</li>
+ * </ul>
+ */
+public class LoadTestDriver {
+
+    private static final String BOUNDARY = "----load-test-boundary";
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+    private final List<Long> fileIds = new CopyOnWriteArrayList<>();
+    private final Map<Endpoint, LatencyRecord> records = new EnumMap<>(Endpoint.class);
+
+    private LoadTestDriver(URI baseUri) {
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            records.put(endpoint, new LatencyRecord());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load-test.concurrency", 32);
+        Duration duration = Duration.parse(System.getProperty("load-test.duration", "PT60S"));
+        int warmUpUploads = Integer.getInteger("load-test.warm-up-uploads", 20);
+        int[] mix = Arrays.stream(System.getProperty("load-test.mix", "1:6:3:3").split(":"))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir"), "drawer-load-test", "temp"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .profiles("load-test")
+                .properties("server.port=0")
+                .run(args);
+
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            LoadTestDriver driver = new LoadTestDriver(URI.create("http://localhost:" + port));
+
+            for (int i = 0; i < warmUpUploads; i++) {
+                driver.upload(new SplittableRandom(i));
+            }
+            driver.records.values().forEach(LatencyRecord::clear);
+
+            driver.run(concurrency, duration, mix);
+            driver.report(duration, context.getBean(StubChatModel.Counters.class));
+        } finally {
+            context.close();
+        }
+    }
+
+    private void run(int concurrency, Duration duration, int[] mix) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        int totalWeight = Arrays.stream(mix).sum();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                SplittableRandom random = new SplittableRandom(1000L + w);
+
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = pick(random.nextInt(totalWeight), mix);
+                        try {
+                            switch (endpoint) {
+                                case UPLOAD -> upload(random);
+                                case LIST -> list(random);
+                                case SEARCH -> search(random);
+                                case DOWNLOAD -> download(random);
+                            }
+                        } catch (IOException e) {
+                            records.get(endpoint).recordError();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static Endpoint pick(int roll, int[] mix) {
+        Endpoint[] endpoints = Endpoint.values();
+        for (int i = 0; i < endpoints.length; i++) {
+            roll -= mix[i];
+            if (roll < 0) {
+                return endpoints[i];
+            }
+        }
+        return Endpoint.LIST;
+    }
+
+    private void upload(SplittableRandom random) throws IOException, InterruptedException {
+        String fileName = "load-test-" + random.nextInt(1_000_000) + ".txt";
+        String content = "부하 테스트 문서 " + random.nextLong() + "\n".repeat(random.nextInt(1, 64));
+
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"multipartFile\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + content + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/file"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+
+        HttpResponse<String> response = send(Endpoint.UPLOAD, request, BodyHandlers.ofString());
+        if (response.statusCode() == 201) {
+            long id = objectMapper.readTree(response.body()).path("data").path("id").asLong(-1);
+            if (id > 0) {
+                fileIds.add(id);
+            }
+        }
+    }
+
+    private void list(SplittableRandom random) throws IOException, InterruptedException {
+        Category[] categories = Category.values();
+        String query = random.nextInt(4) == 0 ?
+                "" : "?category=" + categories[random.nextInt(categories.length)].name();
+
+        send(Endpoint.LIST, HttpRequest.newBuilder(baseUri.resolve("/file" + query)).build(),
+                BodyHandlers.discarding());
+    }
+
+    private void search(SplittableRandom random) throws IOException, InterruptedException {
+        String query = URLEncoder.encode("부하 테스트 문서 " + random.nextInt(100), StandardCharsets.UTF_8);
+
+        send(Endpoint.SEARCH, HttpRequest.newBuilder(baseUri.resolve("/file/search?query=" + query)).build(),
+                BodyHandlers.discarding());
+    }
+
+    private void download(SplittableRandom random) throws IOException, InterruptedException {
+        if (fileIds.isEmpty()) {
+            return;
+        }
+        long id = fileIds.get(random.nextInt(fileIds.size()));
+
+        send(Endpoint.DOWNLOAD, HttpRequest.newBuilder(baseUri.resolve("/file/" + id)).build(),
+                BodyHandlers.discarding());
+    }
+
+    private <T> HttpResponse<T> send(
+            Endpoint endpoint, HttpRequest request, BodyHandler<T> handler
+    ) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<T> response = client.send(request, handler);
+        long elapsed = System.nanoTime() - start;
+
+        if (response.statusCode() >= 400) {
+            records.get(endpoint).recordError();
+        } else {
+            records.get(endpoint).record(elapsed);
+        }
+        return response;
+    }
+
+    private void report(Duration duration, StubChatModel.Counters chatModel) {
+        double seconds = duration.toMillis() / 1000.0;
+
+        System.out.printf("%n%-10s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)");
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            LatencyRecord record = records.get(endpoint);
+            long[] sorted = record.sorted();
+
+            System.out.printf("%-10s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint.name().toLowerCase(), sorted.length, record.errors(),
+                    sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        System.out.printf("%nstub chat calls: %d, prompt tokens: %d, cached prompt tokens: %d%n",
+                chatModel.getCalls(), chatModel.getPromptTokens(), chatModel.getCachedTokens());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private enum Endpoint {
+        UPLOAD, LIST, SEARCH, DOWNLOAD
+    }
+
+    private static final class LatencyRecord {
+
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void record(long elapsed) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = elapsed;
+        }
+
+        synchronized void recordError() {
+            errors++;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized void clear() {
+            size = 0;
+            errors = 0;
+        }
+    }
+}
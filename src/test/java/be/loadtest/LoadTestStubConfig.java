@@ -0,0 +1,64 @@
+package be.loadtest;
+
+import java.time.*;
+import org.springframework.ai.embedding.*;
+import org.springframework.ai.vectorstore.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.context.annotation.*;
+
+/**
+ * load-test 프로필에서 Gemini, 임베딩 모델, Weaviate 를 결정적인 대역으로 교체한다.
+ * <p>
+ * 각 대역의 지연 시간 분포는 {@code load-test.latency.*} 의 median / p99 로 설정한다.
+ */
+@Configuration
+@Profile("load-test")
+public class LoadTestStubConfig {
+
+    @Bean
+    public StubChatModel.Counters stubChatCounters() {
+        return new StubChatModel.Counters();
+    }
+
+    @Bean
+    @Primary
+    public StubPromptCacheClient stubPromptCacheClient() {
+        return new StubPromptCacheClient();
+    }
+
+    @Bean
+    public StubChatModel stubChatModel(
+            StubChatModel.Counters counters,
+            StubPromptCacheClient promptCache,
+            @Value("${load-test.latency.chat.median}") Duration median,
+            @Value("${load-test.latency.chat.p99}") Duration p99,
+            @Value("${load-test.seed}") long seed
+    ) {
+        return new StubChatModel(new LatencySampler(median, p99, seed), counters, promptCache);
+    }
+
+    @Bean
+    public StubEmbeddingModel stubEmbeddingModel(
+            @Value("${load-test.latency.embedding.median}") Duration median,
+            @Value("${load-test.latency.embedding.p99}") Duration p99,
+            @Value("${load-test.seed}") long seed
+    ) {
+        return new StubEmbeddingModel(new LatencySampler(median, p99, seed + 1));
+    }
+
+    @Bean
+    public VectorStore latencyVectorStore(
+            EmbeddingModel embeddingModel,
+            @Value("${load-test.latency.vector-add.median}") Duration addMedian,
+            @Value("${load-test.latency.vector-add.p99}") Duration addP99,
+            @Value("${load-test.latency.vector-search.median}") Duration searchMedian,
+            @Value("${load-test.latency.vector-search.p99}") Duration searchP99,
+            @Value("${load-test.seed}") long seed
+    ) {
+        return new LatencyVectorStore(
+                SimpleVectorStore.builder(embeddingModel).build(),
+                new LatencySampler(addMedian, addP99, seed + 2),
+                new LatencySampler(searchMedian, searchP99, seed + 3)
+        );
+    }
+}
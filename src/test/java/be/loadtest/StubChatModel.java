@@ -0,0 +1,117 @@
+package be.loadtest;
+
+import be.domain.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import org.springframework.ai.chat.messages.*;
+import org.springframework.ai.chat.metadata.*;
+import org.springframework.ai.chat.model.*;
+import org.springframework.ai.chat.prompt.*;
+import org.springframework.ai.google.genai.*;
+
+/**
+ * Gemini 를 대신하는 결정적(deterministic) ChatModel.
+ * <p>
+ * 프롬프트에 카테고리 목록이 있으면 카테고리 배열을, 출력 스키마가 배열이면 태그 배열을,
+ * 그 외에는 한 줄 요약을 돌려준다. 응답은 프롬프트 내용의 해시로만 결정된다.
+ * <p>
+ * 요청이 캐시된 시스템 프롬프트를 참조하면 그 내용을 프롬프트 앞에 붙여 답하고, 토큰은 입력 토큰과 따로 센다.
+ */
+public class StubChatModel implements ChatModel {
+
+    private static final String CATEGORY_LIST = Arrays.toString(Category.values());
+    private static final int TOKENS_PER_MEDIA = 258;
+
+    private final LatencySampler latency;
+    private final Counters counters;
+    private final StubPromptCacheClient promptCache;
+
+    public StubChatModel(LatencySampler latency, Counters counters, StubPromptCacheClient promptCache) {
+        this.latency = latency;
+        this.counters = counters;
+        this.promptCache = promptCache;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        latency.pause();
+
+        String cached = cachedSystemPrompt(prompt);
+        String contents = cached + prompt.getContents();
+        int hash = contents.hashCode();
+        String answer;
+
+        if (contents.contains(CATEGORY_LIST)) {
+            Category[] categories = Category.values();
+            Category first = categories[Math.floorMod(hash, categories.length)];
+            Category second = categories[Math.floorMod(hash >>> 7, categories.length)];
+            answer = first == second ?
+                    String.format("[\"%s\"]", first.name()) :
+                    String.format("[\"%s\", \"%s\"]", first.name(), second.name());
+
+        } else if (contents.contains("\"array\"")) {
+            answer = String.format("[\"태그%d\", \"tag%d\"]",
+                    Math.floorMod(hash, 50), Math.floorMod(hash >>> 9, 200));
+
+        } else {
+            answer = String.format("부하 테스트 문서 요약 #%d", Math.floorMod(hash, 1000));
+        }
+
+        int inputTokens = estimateInputTokens(prompt);
+        int outputTokens = Math.max(1, answer.length() / 4);
+        counters.promptTokens.add(inputTokens);
+        counters.cachedTokens.add((cached.length() + 3) / 4);
+        counters.calls.increment();
+
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .usage(new DefaultUsage(inputTokens, outputTokens))
+                .build();
+
+        return new ChatResponse(
+                List.of(new Generation(new AssistantMessage(answer))), metadata
+        );
+    }
+
+    private String cachedSystemPrompt(Prompt prompt) {
+        if (prompt.getOptions() instanceof GoogleGenAiChatOptions options && options.getCachedContentName() != null) {
+            return promptCache.resolve(options.getCachedContentName())
+                    .orElseThrow(() -> new IllegalStateException("Unknown cached content " + options.getCachedContentName()));
+        }
+        return "";
+    }
+
+    private int estimateInputTokens(Prompt prompt) {
+        int tokens = 0;
+        for (Message message : prompt.getInstructions()) {
+            String text = message.getText();
+            tokens += text == null ? 0 : (text.length() + 3) / 4;
+
+            if (message instanceof UserMessage user) {
+                tokens += user.getMedia().size() * TOKENS_PER_MEDIA;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 호출 수, 입력 토큰 수, 캐시에서 읽은 토큰 수. ChatModel 빈은 회로 차단기 등으로 감싸지므로 별도 빈으로 조회한다.
+     */
+    public static class Counters {
+
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder cachedTokens = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+
+        public long getPromptTokens() {
+            return promptTokens.sum();
+        }
+
+        public long getCachedTokens() {
+            return cachedTokens.sum();
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+    }
+}
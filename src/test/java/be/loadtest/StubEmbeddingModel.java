@@ -0,0 +1,73 @@
+package be.loadtest;
+
+import java.util.*;
+import org.springframework.ai.document.*;
+import org.springframework.ai.embedding.*;
+
+/**
+ * 토큰 해싱(feature hashing) 으로 벡터를 만드는 결정적 EmbeddingModel.
+ * <p>
+ * 같은 단어를 공유하는 텍스트끼리 유사도가 높게 나오므로, 검색 결과가 비어있지 않은 부하를 만들 수 있다.
+ */
+public class StubEmbeddingModel implements EmbeddingModel {
+
+    private static final int DIMENSIONS = 768;
+
+    private final LatencySampler latency;
+
+    public StubEmbeddingModel(LatencySampler latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        latency.pause();
+
+        List<String> inputs = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            embeddings.add(new Embedding(vectorOf(inputs.get(i)), i));
+        }
+
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return call(new EmbeddingRequest(List.of(document.getText()), null))
+                .getResult()
+                .getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return DIMENSIONS;
+    }
+
+    static float[] vectorOf(String text) {
+        float[] vector = new float[DIMENSIONS];
+        if (text == null) {
+            return vector;
+        }
+
+        for (String token : text.toLowerCase().split("[\\s\\p{Punct}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int hash = token.hashCode();
+            vector[Math.floorMod(hash, DIMENSIONS)] += (hash & 1) == 0 ? 1f : -1f;
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float inv = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inv;
+            }
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,25 @@
+package be.loadtest;
+
+import be.service.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 등록한 시스템 프롬프트를 메모리에 보관하는 컨텍스트 캐시 대역. {@link StubChatModel} 이 이름으로 내용을 찾는다.
+ */
+public class StubPromptCacheClient implements PromptCacheClient {
+
+    private final Map<String, String> prompts = new ConcurrentHashMap<>();
+
+    @Override
+    public String create(String model, String systemPrompt, Duration ttl) {
+        String name = "cachedContents/stub-" + Integer.toHexString(systemPrompt.hashCode());
+        prompts.put(name, systemPrompt);
+        return name;
+    }
+
+    public Optional<String> resolve(String name) {
+        return Optional.ofNullable(prompts.get(name));
+    }
+}
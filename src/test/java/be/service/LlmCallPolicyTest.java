@@ -0,0 +1,205 @@
+package be.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import be.util.metric.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 시간에 기대지 않도록 각 요청은 latch 로 순서를 맞춘다. hedge 지연과 deadline 은 테스트가 기다리는 시간보다 충분히 짧다.
+ */
+class LlmCallPolicyTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+    private static final Duration DEADLINE = Duration.ofSeconds(5);
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void doesNotHedgeWithoutSamples() throws Exception {
+        LlmCallPolicy policy = policy(true, DEADLINE);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.call(Stage.SUMMARIZE, () -> {
+            calls.incrementAndGet();
+            return "first";
+        }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals("first", result);
+        assertEquals(1, calls.get());
+        assertEquals(0.0, count("drawer.llm.hedge", "sent"));
+    }
+
+    @Test
+    void hedgeWinsWhenFirstAttemptStalls() throws Exception {
+        LlmCallPolicy policy = policy(true, DEADLINE);
+        warmUp(policy);
+        CountDownLatch firstInterrupted = new CountDownLatch(1);
+
+        String result = policy.call(Stage.SUMMARIZE, attempts(
+                () -> {
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        firstInterrupted.countDown();
+                    }
+                    return "first";
+                },
+                () -> "hedge"
+        )).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals("hedge", result);
+        assertEquals(1.0, count("drawer.llm.hedge", "sent"));
+        assertEquals(1.0, awaitCount("drawer.llm.hedge", "won", 1));
+        // 결과가 정해지면 남은 요청은 interrupt 된다
+        assertTrue(firstInterrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void firstFailureWaitsForHedge() throws Exception {
+        LlmCallPolicy policy = policy(true, DEADLINE);
+        warmUp(policy);
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+        CountDownLatch firstFailed = new CountDownLatch(1);
+
+        String result = policy.call(Stage.SUMMARIZE, attempts(
+                () -> {
+                    await(hedgeStarted);
+                    firstFailed.countDown();
+                    throw new IllegalStateException("first");
+                },
+                () -> {
+                    hedgeStarted.countDown();
+                    await(firstFailed);
+                    return "hedge";
+                }
+        )).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals("hedge", result);
+        assertEquals(1.0, awaitCount("drawer.llm.hedge", "won", 1));
+    }
+
+    @Test
+    void failsWithLastErrorWhenEveryAttemptFails() throws Exception {
+        LlmCallPolicy policy = policy(true, DEADLINE);
+        warmUp(policy);
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+        CountDownLatch firstFailed = new CountDownLatch(1);
+
+        CompletableFuture<String> result = policy.call(Stage.SUMMARIZE, attempts(
+                () -> {
+                    await(hedgeStarted);
+                    firstFailed.countDown();
+                    throw new IllegalStateException("first");
+                },
+                () -> {
+                    hedgeStarted.countDown();
+                    await(firstFailed);
+                    throw new IllegalStateException("hedge");
+                }
+        ));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("hedge", e.getCause().getMessage());
+        assertEquals(0.0, count("drawer.llm.hedge", "won"));
+    }
+
+    @Test
+    void firstFailureFailsCallWithoutHedge() {
+        LlmCallPolicy policy = policy(false, DEADLINE);
+
+        CompletableFuture<String> result = policy.call(Stage.SUMMARIZE, () -> {
+            throw new IllegalStateException("first");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void deadlineCancelsAttempt() throws Exception {
+        LlmCallPolicy policy = policy(false, Duration.ofMillis(100));
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<String> result = policy.call(Stage.SUMMARIZE, () -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("drawer.llm.deadline.exceeded")
+                .tag("stage", Stage.SUMMARIZE.getTag())
+                .counter()
+                .count());
+    }
+
+    /**
+     * 표본 하나를 남겨 다음 호출부터 hedge 하게 한다. 지연이 min-delay 보다 짧으므로 hedge 지연은 min-delay 다.
+     */
+    private static void warmUp(LlmCallPolicy policy) throws Exception {
+        policy.call(Stage.SUMMARIZE, () -> "warm-up").get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private LlmCallPolicy policy(boolean hedgeEnabled, Duration deadline) {
+        return new LlmCallPolicy(
+                deadline, deadline, deadline, deadline,
+                hedgeEnabled, 0.95, HEDGE_DELAY, 1, 10,
+                meterRegistry
+        );
+    }
+
+    private double count(String name, String result) {
+        Counter counter = meterRegistry.find(name)
+                .tag("stage", Stage.SUMMARIZE.getTag())
+                .tag("result", result)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /**
+     * 이긴 요청은 결과를 완료한 뒤에 won 을 세므로, 결과를 받은 직후에는 아직 세지 않았을 수 있다.
+     */
+    private double awaitCount(String name, String result, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (count(name, result) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return count(name, result);
+    }
+
+    /**
+     * 첫 번째 요청은 first, 두 번째 (hedge) 요청은 hedge 를 실행한다.
+     */
+    private static <T> Supplier<T> attempts(Supplier<T> first, Supplier<T> hedge) {
+        AtomicInteger calls = new AtomicInteger();
+        return () -> calls.getAndIncrement() == 0 ? first.get() : hedge.get();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the other attempt");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
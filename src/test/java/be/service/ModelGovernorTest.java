@@ -0,0 +1,142 @@
+package be.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.*;
+
+class ModelGovernorTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Timer waitTimer = Timer.builder("test.wait").register(meterRegistry);
+
+    private long now;
+    // 분당 60 요청, 1000 토큰
+    private final ModelGovernor.Bucket bucket =
+            new ModelGovernor.Bucket(new ModelGovernor.Budget(60, 1000), waitTimer, () -> now);
+
+    @Test
+    void startsFull() {
+        assertEquals(60, bucket.availableRequests(), EPSILON);
+        assertEquals(1000, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void takeConsumesOneRequestAndEstimatedTokens() throws InterruptedException {
+        bucket.take(300);
+
+        assertEquals(59, bucket.availableRequests(), EPSILON);
+        assertEquals(700, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void refillsInProportionToElapsedTime() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            bucket.take(100);
+        }
+        assertEquals(0, bucket.availableTokens(), EPSILON);
+
+        now += TimeUnit.SECONDS.toNanos(6);
+
+        assertEquals(56, bucket.availableRequests(), EPSILON);
+        assertEquals(100, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void refillStopsAtCapacity() throws InterruptedException {
+        bucket.take(500);
+
+        now += TimeUnit.MINUTES.toNanos(5);
+
+        assertEquals(60, bucket.availableRequests(), EPSILON);
+        assertEquals(1000, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void oversizedCallWaitsOnlyForFullBucketAndGoesNegative() throws InterruptedException {
+        bucket.take(2500);
+
+        assertEquals(-1500, bucket.availableTokens(), EPSILON);
+
+        // 1.5분 동안 찬 토큰은 빚을 갚는 데 쓰인다
+        now += TimeUnit.SECONDS.toNanos(90);
+        assertEquals(0, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void settleRefundsOverestimate() throws InterruptedException {
+        ModelGovernor governor = governor();
+        bucket.take(500);
+
+        governor.settle(new ModelGovernor.Permit(bucket, 500), 200);
+
+        assertEquals(800, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void settleChargesUnderestimate() throws InterruptedException {
+        ModelGovernor governor = governor();
+        bucket.take(500);
+
+        governor.settle(new ModelGovernor.Permit(bucket, 500), 900);
+
+        assertEquals(100, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void settleRefundNeverExceedsCapacity() throws InterruptedException {
+        ModelGovernor governor = governor();
+        bucket.take(100);
+
+        governor.settle(new ModelGovernor.Permit(bucket, 5000), 0);
+
+        assertEquals(1000, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void settleWithoutUsageKeepsEstimate() throws InterruptedException {
+        ModelGovernor governor = governor();
+        bucket.take(500);
+
+        governor.settle(new ModelGovernor.Permit(bucket, 500), null);
+        governor.settle(new ModelGovernor.Permit(null, 0), 100);
+
+        assertEquals(500, bucket.availableTokens(), EPSILON);
+    }
+
+    @Test
+    void waitingTakeLeavesOnInterruptWithoutSpending() throws Exception {
+        ModelGovernor.Bucket single =
+                new ModelGovernor.Bucket(new ModelGovernor.Budget(1, 1000), waitTimer, () -> now);
+        single.take(100);
+
+        // 시계가 멈춰 있으므로 두 번째 호출은 interrupt 될 때까지 기다린다
+        CompletableFuture<Throwable> outcome = new CompletableFuture<>();
+        Thread waiting = Thread.ofVirtual().start(() -> {
+            try {
+                single.take(100);
+                outcome.complete(null);
+            } catch (Throwable e) {
+                outcome.complete(e);
+            }
+        });
+        waiting.interrupt();
+
+        assertInstanceOf(InterruptedException.class, outcome.get(10, TimeUnit.SECONDS));
+        assertEquals(0, single.availableRequests(), EPSILON);
+        assertEquals(900, single.availableTokens(), EPSILON);
+    }
+
+    private ModelGovernor governor() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("llm.governor.default.requests-per-minute", "60")
+                .withProperty("llm.governor.default.tokens-per-minute", "1000");
+        return new ModelGovernor(env, meterRegistry);
+    }
+}
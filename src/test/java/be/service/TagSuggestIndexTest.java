@@ -0,0 +1,173 @@
+package be.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import be.controller.dto.*;
+import java.util.*;
+import java.util.stream.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 임의의 태그 변경을 적용한 뒤 {@link TagSuggestIndex#suggest} 결과를 전체 태그를 정렬한 결과와 비교한다.
+ */
+class TagSuggestIndexTest {
+
+    private static final List<String> WORDS = List.of(
+            "한국", "한국어", "한글", "한강", "하늘", "하나", "학교", "핫도그", "허브", "호수",
+            "간식", "감자", "가방", "강아지", "고양이", "곰",
+            "Café", "cafe", "CAFE latte", "café au lait", "java", "javascript", "jazz", "ja va", "Java EE"
+    );
+    private static final List<String> PREFIXES = List.of(
+            "", "ㅎ", "하", "한", "한국", "ㄱ", "가", "가ㅂ", "c", "ca", "caf", "cafe", "CAFÉ", "j", "ja", "jav",
+            " ja va", "없음"
+    );
+    private static final int[] LIMITS = {1, 3, 10, TagSuggestIndex.MAX_SUGGESTIONS};
+
+    @Test
+    void normalizationMatchesJamoAndAccentPrefixes() {
+        assertTrue(TagSuggestIndex.normalize("한국").startsWith(TagSuggestIndex.normalize("ㅎ")));
+        assertTrue(TagSuggestIndex.normalize("한국").startsWith(TagSuggestIndex.normalize("하")));
+        assertTrue(TagSuggestIndex.normalize("한국").startsWith(TagSuggestIndex.normalize("한")));
+        assertFalse(TagSuggestIndex.normalize("하늘").startsWith(TagSuggestIndex.normalize("한")));
+        assertEquals("cafe", TagSuggestIndex.normalize("Café"));
+        assertEquals("javaee", TagSuggestIndex.normalize("Java EE"));
+    }
+
+    @Test
+    void jamoPrefixFindsSyllables() {
+        TagSuggestIndex index = new TagSuggestIndex(null);
+        index.onMembershipChanged(added(1L, "한국", "하늘"));
+        index.onMembershipChanged(added(2L, "한국", "감자"));
+
+        assertEquals(
+                List.of(new TagSuggestion("한국", 2), new TagSuggestion("하늘", 1)),
+                index.suggest("ㅎ", 10)
+        );
+        assertEquals(List.of(new TagSuggestion("한국", 2)), index.suggest("한", 10));
+        assertEquals(List.of(), index.suggest("한국어", 10));
+    }
+
+    @Test
+    void tagTiedWithCachedListIsRankedByDescription() {
+        TagSuggestIndex index = new TagSuggestIndex(null);
+        long fileId = 0;
+        for (int i = 0; i < 100; i++) {
+            index.onMembershipChanged(added(fileId++, String.format("tag%03d", i)));
+        }
+        assertEquals("tag000", index.suggest("t", 5).get(0).description());
+
+        // 파일 수가 같으면 짧은 설명이 앞선다. 캐시된 상위 목록 밖에서 들어와도 마찬가지다
+        index.onMembershipChanged(added(fileId, "tz"));
+
+        assertEquals("tz", index.suggest("t", 5).get(0).description());
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomChanges() {
+        for (long seed = 0; seed < 20; seed++) {
+            runRandomChanges(new Random(seed), vocabulary(new Random(seed), 150), 400, 2);
+        }
+    }
+
+    @Test
+    void matchesBruteForceWhenMostCountsTie() {
+        // 많은 태그를 고르게 뽑으면 대부분 파일 수가 1 이라 순위가 설명 길이와 사전순으로 갈린다
+        for (long seed = 0; seed < 20; seed++) {
+            runRandomChanges(new Random(seed), vocabulary(new Random(seed), 600), 150, 1);
+        }
+    }
+
+    @Test
+    void matchesBruteForceWithFewTags() {
+        // 상위 목록이 접두어의 태그를 모두 담는 경우
+        for (long seed = 0; seed < 20; seed++) {
+            runRandomChanges(new Random(seed), WORDS, 200, 2);
+        }
+    }
+
+    private static void runRandomChanges(Random random, List<String> vocabulary, int steps, double skew) {
+        TagSuggestIndex index = new TagSuggestIndex(null);
+        Map<Long, List<String>> files = new HashMap<>();
+        int fileIds = vocabulary.size() * 2;
+
+        for (int step = 0; step < steps; step++) {
+            long fileId = random.nextInt(fileIds);
+            List<String> before = files.getOrDefault(fileId, List.of());
+            List<String> after = random.nextInt(5) == 0 ? List.of() : randomTags(random, vocabulary, skew);
+            if (after.isEmpty()) {
+                files.remove(fileId);
+            } else {
+                files.put(fileId, after);
+            }
+            index.onMembershipChanged(new FileMembershipChangedEvent(fileId, membership(before), membership(after)));
+
+            // 매번 조회하지 않아야 캐시된 상위 목록이 여러 번 고쳐진 뒤의 결과도 확인한다
+            if (random.nextBoolean()) {
+                String prefix = PREFIXES.get(random.nextInt(PREFIXES.size()));
+                int limit = LIMITS[random.nextInt(LIMITS.length)];
+                assertEquals(bruteForce(files, prefix, limit), index.suggest(prefix, limit),
+                        "prefix=" + prefix + " limit=" + limit + " step=" + step);
+            }
+        }
+
+        for (String prefix : PREFIXES) {
+            for (int limit : LIMITS) {
+                assertEquals(bruteForce(files, prefix, limit), index.suggest(prefix, limit),
+                        "prefix=" + prefix + " limit=" + limit);
+            }
+        }
+    }
+
+    private static List<TagSuggestion> bruteForce(Map<Long, List<String>> files, String prefix, int limit) {
+        String key = TagSuggestIndex.normalize(prefix);
+        Map<String, Long> counts = files.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.groupingBy(tag -> tag, Collectors.counting()));
+
+        return counts.entrySet().stream()
+                .filter(entry -> TagSuggestIndex.normalize(entry.getKey()).startsWith(key))
+                .map(entry -> new TagSuggestion(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(TagSuggestion::fileCount).reversed()
+                        .thenComparingInt(suggestion -> suggestion.description().length())
+                        .thenComparing(TagSuggestion::description))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * 고정 단어에 접두어를 공유하는 생성 단어를 더해, 짧은 접두어의 태그 수가 캐시 크기를 넘게 한다.
+     */
+    private static List<String> vocabulary(Random random, int generated) {
+        List<String> words = new ArrayList<>(WORDS);
+        String[] stems = {"하", "한", "가", "ca", "ja"};
+        for (int i = 0; i < generated; i++) {
+            String stem = stems[random.nextInt(stems.length)];
+            char syllable = (char) ('가' + random.nextInt(11172));
+            words.add(stem + syllable + (i % 3 == 0 ? "" : String.valueOf(i)));
+        }
+        return words.stream().distinct().toList();
+    }
+
+    /**
+     * 최대 3개를 고른다. skew 가 1 보다 크면 앞쪽 단어가 더 자주 뽑힌다.
+     */
+    private static List<String> randomTags(Random random, List<String> vocabulary, double skew) {
+        Set<String> tags = new LinkedHashSet<>();
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            double skewed = Math.pow(random.nextDouble(), skew);
+            tags.add(vocabulary.get((int) (skewed * vocabulary.size())));
+        }
+        return List.copyOf(tags);
+    }
+
+    private static FileMembershipChangedEvent added(Long fileId, String... tags) {
+        return new FileMembershipChangedEvent(
+                fileId, FileMembershipChangedEvent.Membership.NONE, membership(List.of(tags))
+        );
+    }
+
+    private static FileMembershipChangedEvent.Membership membership(List<String> tags) {
+        return new FileMembershipChangedEvent.Membership(null, List.of(), tags);
+    }
+}
@@ -0,0 +1,83 @@
+package be.service.audio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class ExcerptPlanTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final ExcerptPlan plan = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, Long.MAX_VALUE);
+
+    @Test
+    void shortRecordingIsOneWindow() {
+        List<ExcerptPlan.Window> windows = plan.windows(3, 1000);
+
+        assertEquals(1, windows.size());
+        assertWindow(windows.get(0), 0, 3);
+    }
+
+    @Test
+    void longRecordingIsHeadAndEvenlySpacedSamples() {
+        List<ExcerptPlan.Window> windows = plan.windows(10, 1000);
+
+        // 나머지 9초를 3등분한 지점 (4초, 7초) 을 가운데로 하는 1초 구간
+        assertEquals(3, windows.size());
+        assertWindow(windows.get(0), 0, 1);
+        assertWindow(windows.get(1), 3.5, 4.5);
+        assertWindow(windows.get(2), 6.5, 7.5);
+    }
+
+    @Test
+    void samplesDoNotOverlapOrRunPastTheEnd() {
+        ExcerptPlan dense = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(2), 3, Long.MAX_VALUE);
+
+        List<ExcerptPlan.Window> windows = dense.windows(7.1, 1000);
+
+        assertEquals(4, windows.size());
+        for (int i = 1; i < windows.size(); i++) {
+            assertTrue(windows.get(i).start() >= windows.get(i - 1).end() - EPSILON);
+        }
+        assertEquals(7.1, windows.getLast().end(), EPSILON);
+    }
+
+    @Test
+    void windowsShrinkProportionallyToFitMaxBytes() {
+        // 계획한 3초 x 2000 B/s = 6000 바이트를 3000 바이트로 줄인다
+        ExcerptPlan capped = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, 3000);
+
+        List<ExcerptPlan.Window> windows = capped.windows(10, 2000);
+
+        assertEquals(3, windows.size());
+        assertWindow(windows.get(0), 0, 0.5);
+        assertWindow(windows.get(1), 3.5, 4.0);
+        assertWindow(windows.get(2), 6.5, 7.0);
+    }
+
+    @Test
+    void windowsAreUntouchedWhenUnderMaxBytes() {
+        ExcerptPlan capped = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, 6000);
+
+        List<ExcerptPlan.Window> windows = capped.windows(10, 2000);
+
+        assertWindow(windows.get(1), 3.5, 4.5);
+    }
+
+    @Test
+    void windowContainsStartButNotEnd() {
+        ExcerptPlan.Window window = new ExcerptPlan.Window(1, 2);
+
+        assertTrue(window.contains(1));
+        assertTrue(window.contains(1.999));
+        assertFalse(window.contains(2));
+        assertFalse(window.contains(0.999));
+    }
+
+    private static void assertWindow(ExcerptPlan.Window window, double start, double end) {
+        assertEquals(start, window.start(), EPSILON);
+        assertEquals(end, window.end(), EPSILON);
+    }
+}
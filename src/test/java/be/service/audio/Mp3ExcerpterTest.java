@@ -0,0 +1,164 @@
+package be.service.audio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class Mp3ExcerpterTest {
+
+    // MPEG-1 Layer III, 128 kbps, 44100 Hz, mono: 417 바이트, 1152 샘플
+    private static final byte[] FRAME_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, (byte) 0xC0};
+    private static final int FRAME_LENGTH = 144 * 128_000 / 44_100;
+    private static final double FRAME_SECONDS = 1152.0 / 44_100;
+    private static final int SIDE_INFO_SIZE = 17;
+
+    private final ExcerptPlan plan = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, Long.MAX_VALUE);
+
+    @Test
+    void durationIsMeasuredByCountingFrames() throws IOException {
+        byte[] mp3 = frames(10);
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        assertEquals(millis(10), excerpt.duration());
+        assertEquals(1, excerpt.segments().size());
+        AudioExcerpt.Segment segment = excerpt.segments().get(0);
+        assertEquals(Mp3Excerpter.MP3, segment.mimeType());
+        assertArrayEquals(mp3, segment.data());
+    }
+
+    @Test
+    void id3v2TagIsSkipped() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 태그 안에 프레임 헤더처럼 보이는 바이트가 있어도 프레임으로 읽지 않아야 한다
+        byte[] tag = new byte[128];
+        System.arraycopy(FRAME_HEADER, 0, tag, 16, FRAME_HEADER.length);
+        out.writeBytes(id3v2Header(tag.length, false));
+        out.writeBytes(tag);
+        byte[] audio = frames(5);
+        out.writeBytes(audio);
+        byte[] mp3 = out.toByteArray();
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        assertEquals(millis(5), excerpt.duration());
+        assertArrayEquals(audio, excerpt.segments().get(0).data());
+    }
+
+    @Test
+    void id3v2FooterIsSkipped() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] tag = new byte[20];
+        out.writeBytes(id3v2Header(tag.length, true));
+        out.writeBytes(tag);
+        out.writeBytes(new byte[10]);
+        byte[] audio = frames(3);
+        out.writeBytes(audio);
+        byte[] mp3 = out.toByteArray();
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        assertEquals(millis(3), excerpt.duration());
+        assertArrayEquals(audio, excerpt.segments().get(0).data());
+    }
+
+    @Test
+    void resynchronizesAfterGarbage() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(frames(3));
+        out.writeBytes(new byte[]{0x12, 0x34, (byte) 0xFF, 0x00, 0x56, (byte) 0xFF});
+        out.writeBytes(frames(7));
+        byte[] mp3 = out.toByteArray();
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        assertEquals(millis(10), excerpt.duration());
+        byte[] data = excerpt.segments().get(0).data();
+        assertEquals(10 * FRAME_LENGTH, data.length);
+        assertArrayEquals(frames(10), data);
+    }
+
+    @Test
+    void truncatedLastFrameIsDropped() throws IOException {
+        byte[] whole = frames(4);
+        byte[] mp3 = Arrays.copyOf(whole, whole.length - 100);
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        assertEquals(millis(3), excerpt.duration());
+        assertEquals(3 * FRAME_LENGTH, excerpt.segments().get(0).data().length);
+    }
+
+    @Test
+    void xingFrameCountDrivesWindowPlacement() throws IOException {
+        // 실제로는 50 프레임 (약 1.3초) 이지만 Xing 헤더는 1000 프레임 (약 26초) 이라고 알려준다
+        byte[] mp3 = frames(50);
+        writeXing(mp3, 1000);
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        // 추정 길이가 head + samples 보다 길어 첫 1초 구간만 채워진다
+        int headFrames = (int) Math.ceil(1 / FRAME_SECONDS);
+        assertEquals(millis(50), excerpt.duration());
+        assertEquals(1, excerpt.segments().size());
+        assertEquals(headFrames * FRAME_LENGTH, excerpt.segments().get(0).data().length);
+    }
+
+    @Test
+    void withoutXingFileSizeDrivesWindowPlacement() throws IOException {
+        byte[] mp3 = frames(50);
+
+        AudioExcerpt excerpt = Mp3Excerpter.excerpt(new ByteArrayInputStream(mp3), (long) mp3.length, plan);
+
+        // 비트레이트로 추정한 길이가 head + samples 보다 짧아 전체 한 구간이다
+        assertEquals(1, excerpt.segments().size());
+        assertEquals(mp3.length, excerpt.segments().get(0).data().length);
+    }
+
+    @Test
+    void rejectsStreamWithoutFrames() {
+        byte[] garbage = new byte[1024];
+
+        assertThrows(IOException.class,
+                () -> Mp3Excerpter.excerpt(new ByteArrayInputStream(garbage), (long) garbage.length, plan));
+    }
+
+    private static byte[] frames(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            byte[] frame = new byte[FRAME_LENGTH];
+            System.arraycopy(FRAME_HEADER, 0, frame, 0, FRAME_HEADER.length);
+            out.writeBytes(frame);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 첫 프레임의 side info 뒤에 프레임 수 플래그만 켠 Xing 헤더를 쓴다.
+     */
+    private static void writeXing(byte[] mp3, int frames) {
+        int offset = 4 + SIDE_INFO_SIZE;
+        System.arraycopy("Xing".getBytes(StandardCharsets.ISO_8859_1), 0, mp3, offset, 4);
+        mp3[offset + 7] = 0x1;
+        mp3[offset + 8] = (byte) (frames >>> 24);
+        mp3[offset + 9] = (byte) (frames >>> 16);
+        mp3[offset + 10] = (byte) (frames >>> 8);
+        mp3[offset + 11] = (byte) frames;
+    }
+
+    private static byte[] id3v2Header(int size, boolean footer) {
+        return new byte[]{
+                'I', 'D', '3', 4, 0, (byte) (footer ? 0x10 : 0),
+                (byte) (size >>> 21 & 0x7F), (byte) (size >>> 14 & 0x7F),
+                (byte) (size >>> 7 & 0x7F), (byte) (size & 0x7F),
+        };
+    }
+
+    private static Duration millis(int frames) {
+        return Duration.ofMillis((long) (frames * FRAME_SECONDS * 1000));
+    }
+}
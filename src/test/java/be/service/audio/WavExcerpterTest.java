@@ -0,0 +1,220 @@
+package be.service.audio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class WavExcerpterTest {
+
+    // 16 bit mono, 1000 Hz → 2000 B/s, blockAlign 2
+    private static final int SAMPLE_RATE = 1000;
+    private static final int BYTE_RATE = 2000;
+
+    private final ExcerptPlan plan = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, Long.MAX_VALUE);
+
+    @Test
+    void shortRecordingIsCopiedWhole() throws IOException {
+        byte[] samples = samples(2 * BYTE_RATE);
+        byte[] wav = wav(samples, samples.length, null);
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, plan);
+
+        assertEquals(Duration.ofSeconds(2), excerpt.duration());
+        assertEquals(1, excerpt.segments().size());
+        AudioExcerpt.Segment segment = excerpt.segments().get(0);
+        assertEquals(WavExcerpter.WAV, segment.mimeType());
+        assertEquals(Duration.ZERO, segment.start());
+        assertEquals(Duration.ofSeconds(2), segment.end());
+        assertArrayEquals(samples, dataChunk(segment.data()));
+    }
+
+    @Test
+    void longRecordingKeepsOnlyPlannedWindows() throws IOException {
+        byte[] samples = samples(10 * BYTE_RATE);
+        byte[] wav = wav(samples, samples.length, null);
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, plan);
+
+        assertEquals(Duration.ofSeconds(10), excerpt.duration());
+        List<AudioExcerpt.Segment> segments = excerpt.segments();
+        assertEquals(3, segments.size());
+        assertEquals(Duration.ofMillis(3500), segments.get(1).start());
+        assertEquals(Duration.ofMillis(4500), segments.get(1).end());
+        assertArrayEquals(Arrays.copyOfRange(samples, 7000, 9000), dataChunk(segments.get(1).data()));
+        assertArrayEquals(Arrays.copyOfRange(samples, 13000, 15000), dataChunk(segments.get(2).data()));
+    }
+
+    @Test
+    void oddSizedChunksBeforeFmtAreSkippedWithPadding() throws IOException {
+        byte[] samples = samples(BYTE_RATE);
+        // 크기 3 인 청크 뒤에는 패딩 바이트 하나가 온다
+        byte[] wav = wav(samples, samples.length, new byte[]{'x', 'y', 'z'});
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, plan);
+
+        assertEquals(Duration.ofSeconds(1), excerpt.duration());
+        assertArrayEquals(samples, dataChunk(excerpt.segments().get(0).data()));
+    }
+
+    @Test
+    void zeroDataSizeFallsBackToFileSize() throws IOException {
+        byte[] samples = samples(2 * BYTE_RATE);
+        byte[] wav = wav(samples, 0, null);
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, plan);
+
+        assertEquals(Duration.ofSeconds(2), excerpt.duration());
+        assertArrayEquals(samples, dataChunk(excerpt.segments().get(0).data()));
+    }
+
+    @Test
+    void maxDataSizeFallsBackToFileSize() throws IOException {
+        byte[] samples = samples(10 * BYTE_RATE);
+        byte[] wav = wav(samples, 0xFFFFFFFFL, new byte[]{'x'});
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, plan);
+
+        assertEquals(Duration.ofSeconds(10), excerpt.duration());
+        assertEquals(3, excerpt.segments().size());
+    }
+
+    @Test
+    void segmentsShrinkToFitMaxBytes() throws IOException {
+        byte[] samples = samples(10 * BYTE_RATE);
+        byte[] wav = wav(samples, samples.length, null);
+        ExcerptPlan capped = new ExcerptPlan(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, 3 * BYTE_RATE / 2);
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, capped);
+
+        assertEquals(3, excerpt.segments().size());
+        for (AudioExcerpt.Segment segment : excerpt.segments()) {
+            assertEquals(BYTE_RATE / 2, dataChunk(segment.data()).length);
+        }
+        assertEquals(Duration.ofMillis(3500), excerpt.segments().get(1).start());
+        assertEquals(Duration.ofMillis(4000), excerpt.segments().get(1).end());
+    }
+
+    @Test
+    void oddSampleCountIsPaddedInOutput() throws IOException {
+        // 8 bit mono 는 blockAlign 이 1 이라 data 크기가 홀수일 수 있다
+        byte[] samples = samples(3);
+        byte[] wav = wav(fmt(1, 8), samples, samples.length, null);
+
+        AudioExcerpt excerpt = WavExcerpter.excerpt(new ByteArrayInputStream(wav), (long) wav.length, plan);
+
+        byte[] out = excerpt.segments().get(0).data();
+        assertEquals(8 + le32(out, 4), out.length);
+        assertEquals(0, out.length % 2);
+        assertArrayEquals(samples, dataChunk(out));
+    }
+
+    @Test
+    void rejectsNonWaveStream() {
+        byte[] garbage = "RIFF\0\0\0\0AVI LIST".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IOException.class,
+                () -> WavExcerpter.excerpt(new ByteArrayInputStream(garbage), null, plan));
+    }
+
+    @Test
+    void rejectsDataBeforeFmt() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("RIFF".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(out, 4 + 8 + 2);
+        out.writeBytes("WAVEdata".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(out, 2);
+        out.writeBytes(new byte[2]);
+
+        assertThrows(IOException.class,
+                () -> WavExcerpter.excerpt(new ByteArrayInputStream(out.toByteArray()), null, plan));
+    }
+
+    private static byte[] samples(int length) {
+        byte[] samples = new byte[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (byte) (i * 31 + i / 256);
+        }
+        return samples;
+    }
+
+    private static byte[] wav(byte[] samples, long declaredDataSize, byte[] extraChunk) {
+        return wav(fmt(SAMPLE_RATE * 2, 16), samples, declaredDataSize, extraChunk);
+    }
+
+    /**
+     * @param extraChunk fmt 앞에 넣을 청크 내용. 크기가 홀수면 패딩 바이트를 붙인다
+     */
+    private static byte[] wav(byte[] fmt, byte[] samples, long declaredDataSize, byte[] extraChunk) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes("WAVE".getBytes(StandardCharsets.US_ASCII));
+        if (extraChunk != null) {
+            body.writeBytes("LIST".getBytes(StandardCharsets.US_ASCII));
+            writeLe32(body, extraChunk.length);
+            body.writeBytes(extraChunk);
+            body.write(new byte[extraChunk.length & 1], 0, extraChunk.length & 1);
+        }
+        body.writeBytes("fmt ".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(body, fmt.length);
+        body.writeBytes(fmt);
+        body.writeBytes("data".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(body, declaredDataSize);
+        body.writeBytes(samples);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes("RIFF".getBytes(StandardCharsets.US_ASCII));
+        writeLe32(out, body.size());
+        out.writeBytes(body.toByteArray());
+        return out.toByteArray();
+    }
+
+    /**
+     * PCM mono fmt 청크 내용
+     */
+    private static byte[] fmt(int byteRate, int bitsPerSample) {
+        int blockAlign = bitsPerSample / 8;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeLe16(out, 1);
+        writeLe16(out, 1);
+        writeLe32(out, (long) byteRate / blockAlign);
+        writeLe32(out, byteRate);
+        writeLe16(out, blockAlign);
+        writeLe16(out, bitsPerSample);
+        return out.toByteArray();
+    }
+
+    /**
+     * 잘라낸 WAV 의 data 청크 내용. 앞에는 RIFF 헤더와 fmt 청크만 있어야 한다.
+     */
+    private static byte[] dataChunk(byte[] wav) {
+        assertEquals("RIFF", new String(wav, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("WAVEfmt ", new String(wav, 8, 8, StandardCharsets.US_ASCII));
+        int fmtSize = (int) le32(wav, 16);
+        int offset = 20 + fmtSize + (fmtSize & 1);
+        assertEquals("data", new String(wav, offset, 4, StandardCharsets.US_ASCII));
+        int size = (int) le32(wav, offset + 4);
+        return Arrays.copyOfRange(wav, offset + 8, offset + 8 + size);
+    }
+
+    private static long le32(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+               | (bytes[offset + 1] & 0xFFL) << 8
+               | (bytes[offset + 2] & 0xFFL) << 16
+               | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static void writeLe16(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xFF);
+        out.write(value >> 8 & 0xFF);
+    }
+
+    private static void writeLe32(ByteArrayOutputStream out, long value) {
+        out.write((int) value & 0xFF);
+        out.write((int) (value >> 8) & 0xFF);
+        out.write((int) (value >> 16) & 0xFF);
+        out.write((int) (value >> 24) & 0xFF);
+    }
+}
@@ -0,0 +1,171 @@
+package be.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+    private long now;
+    // window 4, 최소 4번, 실패율 50% 이상이면 열림, half-open 시험 2번
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, OPEN_DURATION, 2, () -> now);
+
+    @Test
+    void staysClosedUntilMinimumCalls() {
+        failCalls(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        failCalls(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        succeedCalls(2);
+        failCalls(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        failCalls(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void slidingWindowForgetsOldestCalls() {
+        // [F, F, S, S] 는 50% 지만 성공으로는 열리지 않는다
+        failCalls(2);
+        succeedCalls(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 가장 오래된 두 실패가 밀려나 [S, F, S, S] 가 된다
+        succeedCalls(1);
+        failCalls(1);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void rejectsWhileOpenAndReportsRemainingTime() {
+        failCalls(4);
+        now += TimeUnit.SECONDS.toNanos(4);
+
+        assertTrue(breaker.tryAcquire().isEmpty());
+        assertEquals(Duration.ofSeconds(6), breaker.remainingOpen());
+    }
+
+    @Test
+    void remainingTimeIsZeroUnlessOpen() {
+        assertEquals(Duration.ZERO, breaker.remainingOpen());
+
+        failCalls(4);
+        now += OPEN_DURATION.toNanos() + 1;
+
+        assertEquals(Duration.ZERO, breaker.remainingOpen());
+    }
+
+    @Test
+    void halfOpenAllowsLimitedTrialsAndClosesWhenAllSucceed() {
+        failCalls(4);
+        now += OPEN_DURATION.toNanos();
+
+        CircuitBreaker.Permit first = breaker.tryAcquire().orElseThrow();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        CircuitBreaker.Permit second = breaker.tryAcquire().orElseThrow();
+        assertTrue(breaker.tryAcquire().isEmpty());
+
+        breaker.onSuccess(first);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(second);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 닫히면 실패 기록을 새로 시작한다
+        failCalls(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenFailureReopensForAFullDuration() {
+        failCalls(4);
+        now += OPEN_DURATION.toNanos();
+
+        breaker.onFailure(breaker.tryAcquire().orElseThrow());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(OPEN_DURATION, breaker.remainingOpen());
+    }
+
+    @Test
+    void releaseReturnsHalfOpenTrial() {
+        failCalls(4);
+        now += OPEN_DURATION.toNanos();
+        CircuitBreaker.Permit first = breaker.tryAcquire().orElseThrow();
+        breaker.tryAcquire().orElseThrow();
+        assertTrue(breaker.tryAcquire().isEmpty());
+
+        breaker.release(first);
+
+        assertTrue(breaker.tryAcquire().isPresent());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void releaseIsNotCountedAsFailure() {
+        for (int i = 0; i < 10; i++) {
+            breaker.release(breaker.tryAcquire().orElseThrow());
+        }
+        failCalls(3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void lateFailureFromBeforeOpeningDoesNotExtendOpenTime() {
+        CircuitBreaker.Permit slow = breaker.tryAcquire().orElseThrow();
+        failCalls(4);
+        now += TimeUnit.SECONDS.toNanos(5);
+
+        breaker.onFailure(slow);
+
+        assertEquals(Duration.ofSeconds(5), breaker.remainingOpen());
+    }
+
+    @Test
+    void lateSuccessFromBeforeOpeningIsNotCountedAsTrial() {
+        CircuitBreaker.Permit slow = breaker.tryAcquire().orElseThrow();
+        failCalls(4);
+        now += OPEN_DURATION.toNanos();
+        CircuitBreaker.Permit trial = breaker.tryAcquire().orElseThrow();
+
+        breaker.onSuccess(slow);
+        breaker.onSuccess(trial);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void lateReleaseFromBeforeOpeningDoesNotAddTrials() {
+        CircuitBreaker.Permit slow = breaker.tryAcquire().orElseThrow();
+        failCalls(4);
+        now += OPEN_DURATION.toNanos();
+        breaker.tryAcquire().orElseThrow();
+        breaker.tryAcquire().orElseThrow();
+
+        breaker.release(slow);
+
+        assertTrue(breaker.tryAcquire().isEmpty());
+    }
+
+    private void succeedCalls(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onSuccess(breaker.tryAcquire().orElseThrow());
+        }
+    }
+
+    private void failCalls(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure(breaker.tryAcquire().orElseThrow());
+        }
+    }
+}
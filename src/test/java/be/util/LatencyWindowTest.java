@@ -0,0 +1,66 @@
+package be.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+class LatencyWindowTest {
+
+    @Test
+    void emptyUntilMinimumSamples() {
+        LatencyWindow window = new LatencyWindow(10);
+        assertEquals(Optional.empty(), window.percentile(0.5, 0));
+
+        record(window, 1, 2);
+        assertEquals(Optional.empty(), window.percentile(0.5, 3));
+
+        record(window, 3);
+        assertEquals(Optional.of(Duration.ofMillis(2)), window.percentile(0.5, 3));
+    }
+
+    @Test
+    void percentileIsNearestRank() {
+        LatencyWindow window = new LatencyWindow(10);
+        // 정렬되지 않은 순서로 기록한다
+        record(window, 7, 3, 10, 1, 5, 9, 2, 8, 4, 6);
+
+        assertEquals(Duration.ofMillis(10), window.percentile(0.95, 1).orElseThrow());
+        assertEquals(Duration.ofMillis(9), window.percentile(0.9, 1).orElseThrow());
+        assertEquals(Duration.ofMillis(5), window.percentile(0.5, 1).orElseThrow());
+        assertEquals(Duration.ofMillis(1), window.percentile(0.1, 1).orElseThrow());
+    }
+
+    @Test
+    void extremeQuantilesAreClampedToSamples() {
+        LatencyWindow window = new LatencyWindow(10);
+        record(window, 4, 2, 6);
+
+        assertEquals(Duration.ofMillis(2), window.percentile(0, 1).orElseThrow());
+        assertEquals(Duration.ofMillis(6), window.percentile(1, 1).orElseThrow());
+    }
+
+    @Test
+    void partiallyFilledWindowIgnoresUnusedSlots() {
+        LatencyWindow window = new LatencyWindow(100);
+        record(window, 5, 6, 7);
+
+        assertEquals(Duration.ofMillis(5), window.percentile(0.01, 1).orElseThrow());
+    }
+
+    @Test
+    void keepsOnlyMostRecentSamples() {
+        LatencyWindow window = new LatencyWindow(4);
+        record(window, 100, 200, 1, 2, 3, 4);
+
+        assertEquals(Duration.ofMillis(4), window.percentile(1, 1).orElseThrow());
+        assertEquals(Duration.ofMillis(1), window.percentile(0, 4).orElseThrow());
+    }
+
+    private static void record(LatencyWindow window, long... millis) {
+        for (long value : millis) {
+            window.record(Duration.ofMillis(value));
+        }
+    }
+}